@@ -0,0 +1,36 @@
+package com.github.t1.logging.clientfilter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Enable or disable DEBUG for the logger of an endpoint.
+ * When enabled, the events are formatted, but not written anywhere, so we measure our own overhead
+ * and not that of the console.
+ */
+final class BenchmarkLogging {
+    private BenchmarkLogging() {}
+
+    static void debug(String loggerName, boolean enabled) {
+        var logger = (Logger) LoggerFactory.getLogger(loggerName);
+        logger.setLevel(enabled ? Level.DEBUG : Level.INFO);
+        logger.setAdditive(false);
+        logger.detachAndStopAllAppenders();
+        var appender = new FormattingAppender();
+        appender.setContext(logger.getLoggerContext());
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    private static class FormattingAppender extends AppenderBase<ILoggingEvent> {
+        @SuppressWarnings("unused") private volatile int sink;
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            sink = event.getFormattedMessage().length();
+        }
+    }
+}
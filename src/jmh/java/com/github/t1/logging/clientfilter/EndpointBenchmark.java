@@ -0,0 +1,64 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Stubs.ClientExchange;
+import com.github.t1.logging.clientfilter.Stubs.ServerExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost per call of the filters, when DEBUG is disabled, i.e. essentially resolving the logger.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndpointBenchmark {
+    public static class Resource {
+        public String get() {
+            return "";
+        }
+    }
+
+    public interface Api {
+        String get();
+    }
+
+    private final LoggingContainerFilter containerFilter = new LoggingContainerFilter();
+    private final LoggingClientFilter clientFilter = new LoggingClientFilter();
+    private ServerExchange server;
+    private ClientExchange client;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        var resourceMethod = Resource.class.getMethod("get");
+        var apiMethod = Api.class.getMethod("get");
+        BenchmarkLogging.debug(Endpoint.of(resourceMethod).name(), false);
+        BenchmarkLogging.debug(Endpoint.of(apiMethod).name(), false);
+        server = new ServerExchange(resourceMethod, 0, 0);
+        server.reset();
+        client = new ClientExchange(apiMethod, 0, 0);
+        client.reset();
+    }
+
+    @Benchmark
+    public void containerRequestFilterDisabled() {
+        containerFilter.filter(server.request);
+    }
+
+    @Benchmark
+    public void clientRequestFilterDisabled() {
+        clientFilter.filter(client.request);
+    }
+}
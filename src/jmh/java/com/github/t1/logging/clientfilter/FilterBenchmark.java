@@ -0,0 +1,85 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Stubs.ClientExchange;
+import com.github.t1.logging.clientfilter.Stubs.ServerExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A complete exchange through the filters, on the server and on the client side:
+ * the request and the response filter, and the application reading the request body and writing the response body
+ * (or vice versa on the client side) through the streams the filters may have wrapped.
+ * Run with <code>-prof gc</code> to see the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterBenchmark {
+    public static class Resource {
+        public String post(String body) {
+            return body;
+        }
+    }
+
+    public interface Api {
+        String post(String body);
+    }
+
+    @Param({"false", "true"})
+    public boolean debug;
+
+    @Param({"2", "20"})
+    public int headers;
+
+    @Param({"100", "10000", "1000000", "10000000"})
+    public int bodySize;
+
+    private final LoggingContainerFilter containerFilter = new LoggingContainerFilter();
+    private final LoggingClientFilter clientFilter = new LoggingClientFilter();
+    private ServerExchange server;
+    private ClientExchange client;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        var resourceMethod = Resource.class.getMethod("post", String.class);
+        var apiMethod = Api.class.getMethod("post", String.class);
+        BenchmarkLogging.debug(Endpoint.of(resourceMethod).name(), debug);
+        BenchmarkLogging.debug(Endpoint.of(apiMethod).name(), debug);
+        server = new ServerExchange(resourceMethod, headers, bodySize);
+        client = new ClientExchange(apiMethod, headers, bodySize);
+    }
+
+    @Benchmark
+    public long server() {
+        server.reset();
+        containerFilter.filter(server.request);
+        var read = server.read(server.request.getEntityStream());
+        containerFilter.filter(server.request, server.response);
+        server.write(server.response.getEntityStream());
+        return read;
+    }
+
+    @Benchmark
+    public long client() throws IOException {
+        client.reset();
+        clientFilter.filter(client.request);
+        client.write(client.request.getEntityStream());
+        clientFilter.filter(client.request, client.response);
+        return client.read(client.response.getEntityStream());
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Head;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.t1.logging.clientfilter.Kind.SERVER_RESPONSE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.slf4j.event.Level.DEBUG;
+
+/**
+ * The {@link LoggingOutputStream} compared to writing directly, and the {@link LoggingTools#safe(String, List) header redaction}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamBenchmark {
+    private static final String LOGGER = StreamBenchmark.class.getName();
+    private static final List<String> BASIC_AUTH = List.of("Basic Zm9vOjEyMzQ1Njc4OTAxMjM0NTY=");
+    private static final List<String> ACCEPT = List.of("application/json");
+
+    @Param({"100", "10000", "1000000", "10000000"})
+    public int bodySize;
+
+    private byte[] body;
+    private Head head;
+
+    @Setup
+    public void setup() {
+        BenchmarkLogging.debug(LOGGER, true);
+        body = "x".repeat(63).concat("\n").repeat(bodySize / 64 + 1).substring(0, bodySize).getBytes(UTF_8);
+        head = new Head(0, LoggerFactory.getLogger(LOGGER), DEBUG, SERVER_RESPONSE, "GET", URI.create("http://localhost"), null, Map.of(), null);
+    }
+
+    @Benchmark
+    public void direct() throws IOException {
+        write(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void logging() throws IOException {
+        write(new LoggingOutputStream(OutputStream.nullOutputStream(), new BodyLogger(new Exchange(), head, UTF_8, false)));
+    }
+
+    /** scans all bytes for JSON field names to mask */
+    @Benchmark
+    public void loggingMasked() throws IOException {
+        write(new LoggingOutputStream(OutputStream.nullOutputStream(), new BodyLogger(new Exchange(), head, UTF_8, false, BodyMasker.Format.JSON, null, ContentEncoding.IDENTITY, LoggingConfig.MAX_BODY_BYTES)));
+    }
+
+    /** writes and emits every line on its own, like for server-sent events */
+    @Benchmark
+    public void loggingStreamed() throws IOException {
+        write(new LoggingOutputStream(OutputStream.nullOutputStream(), new BodyLogger(new Exchange(), head, UTF_8, true)), 64);
+    }
+
+    private void write(OutputStream stream) throws IOException {
+        write(stream, 8192);
+    }
+
+    private void write(OutputStream stream, int chunkSize) throws IOException {
+        try (stream) {
+            for (int off = 0; off < body.length; off += chunkSize)
+                stream.write(body, off, Math.min(chunkSize, body.length - off));
+        }
+    }
+
+    @Benchmark
+    public String safeAuthorization() {
+        return LoggingTools.safe("Authorization", BASIC_AUTH);
+    }
+
+    @Benchmark
+    public String safeOtherHeader() {
+        return LoggingTools.safe("Accept", ACCEPT);
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.t1.logging.clientfilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Hands the {@link Message}s over to a bounded queue, so the request thread doesn't have to wait for
+ * the formatting and the appenders. A single daemon thread drains the queue in batches and sends them to the sink in order.
+ * <p>
+ * The writer thread is started with the first message, and it stops when the queue has been empty for a while,
+ * so it doesn't keep the class loader of an undeployed application alive; the next message starts a new one.
+ */
+@Slf4j
+class AsyncEmitter implements Emitter {
+    /** What to do when the queue is full */
+    enum Overflow {
+        /** Drop the message and count it; the writer thread logs a warning with the number of dropped messages */
+        DROP,
+        /** Wait for the writer thread to make room; this slows down the request, but nothing is lost */
+        BLOCK
+    }
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final Duration IDLE = Duration.ofMinutes(1);
+
+    private final BlockingQueue<Message> queue;
+    private final Overflow overflow;
+    private final Emitter sink;
+    private final long idleNanos;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private long reportedDropped;
+
+    AsyncEmitter(int queueSize, Overflow overflow, Emitter sink) {
+        this(queueSize, overflow, sink, IDLE);
+    }
+
+    /** @param idle stop the writer thread when there was no message for this long */
+    AsyncEmitter(int queueSize, Overflow overflow, Emitter sink, Duration idle) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.overflow = overflow;
+        this.sink = sink;
+        this.idleNanos = idle.toNanos();
+    }
+
+    @Override
+    public void send(Message message) {
+        switch (overflow) {
+            case DROP -> {
+                if (queue.offer(message)) {
+                    startWriter();
+                } else {
+                    message.discard();
+                    dropped.increment();
+                }
+            }
+            case BLOCK -> {
+                try {
+                    startWriter(); // in case the writer was interrupted while the queue was full
+                    queue.put(message);
+                    startWriter();
+                } catch (InterruptedException e) {
+                    message.discard();
+                    dropped.increment();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /** Called after adding a message, so a non-empty queue always has a writer */
+    private void startWriter() {
+        if (!running.get() && running.compareAndSet(false, true)) {
+            var thread = new Thread(this::run, "jax-rs-logging-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    boolean isRunning() {
+        return running.get();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    int queueSize() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Message> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (true) {
+            Message first;
+            try {
+                first = queue.poll(idleNanos, NANOSECONDS);
+            } catch (InterruptedException e) {
+                running.set(false);
+                return;
+            }
+            if (first == null) {
+                running.set(false);
+                // a producer may have added a message, but seen that we were still running
+                if (queue.isEmpty() || !running.compareAndSet(false, true))
+                    return;
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            for (var message : batch) {
+                try {
+                    sink.send(message);
+                } catch (RuntimeException e) {
+                    log.warn("failed to log {}", message.getClass().getSimpleName(), e);
+                }
+            }
+            batch.clear();
+            reportDropped();
+        }
+    }
+
+    private void reportDropped() {
+        var total = dropped.sum();
+        if (total > reportedDropped) {
+            log.warn("dropped {} log messages, as the queue was full", total - reportedDropped);
+            reportedDropped = total;
+        }
+    }
+}
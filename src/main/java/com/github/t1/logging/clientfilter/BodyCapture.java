@@ -0,0 +1,227 @@
+package com.github.t1.logging.clientfilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static java.nio.charset.CodingErrorAction.REPLACE;
+
+/**
+ * Keeps the first bytes of a body up to a fixed limit and only counts the rest.
+ * The buffer comes from the {@link BufferPool}; {@link #release() release} it when it has been logged.
+ * Short lines {@link #split(int) split} off in streaming mode are copied into exactly sized arrays instead,
+ * as they can be held back for a while, e.g. in tail mode, and would pin a full pool buffer each.
+ * If a capture needs more than the pooled buffer, e.g. for a decompressed body, the pooled buffer goes back
+ * to the pool right away, instead of being dropped for the larger copy.
+ */
+class BodyCapture {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte[] NONE = new byte[0];
+    private static final ThreadLocal<Decoding> DECODING = ThreadLocal.withInitial(Decoding::new);
+
+    private final int limit;
+    /** <code>false</code> for the short lines split off in streaming mode */
+    private final boolean pooling;
+    private byte[] bytes;
+    /** the buffer we got from the pool, as long as we still use it */
+    private byte[] pooled;
+    private int size;
+    private long truncated;
+
+    BodyCapture(int limit) {
+        this.limit = limit;
+        this.pooling = true;
+        this.pooled = (limit == 0) ? NONE : BufferPool.INSTANCE.acquire();
+        this.bytes = (pooled != null) ? pooled : new byte[Math.min(limit, INITIAL_CAPACITY)];
+    }
+
+    /** A capture of exactly these bytes, not from the pool */
+    private BodyCapture(byte[] bytes) {
+        this.limit = bytes.length;
+        this.pooling = false;
+        this.bytes = bytes;
+        this.size = bytes.length;
+    }
+
+    /** Return the buffer to the pool; the capture is empty afterwards. */
+    void release() {
+        if (bytes == NONE)
+            return;
+        if (pooling)
+            BufferPool.INSTANCE.release(bytes);
+        bytes = pooled = NONE;
+        size = 0;
+    }
+
+    void write(int b) {
+        if (bytes == NONE) {
+            truncated++;
+        } else if (size < limit) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) b;
+        } else {
+            truncated++;
+        }
+    }
+
+    void write(byte[] b, int off, int len) {
+        var captured = (bytes == NONE) ? 0 : Math.min(len, limit - size);
+        if (captured > 0) {
+            ensureCapacity(size + captured);
+            System.arraycopy(b, off, bytes, size, captured);
+            size += captured;
+        }
+        truncated += len - Math.max(captured, 0);
+    }
+
+    /** Count bytes that are not captured at all */
+    void skip(long count) {
+        truncated += count;
+    }
+
+    int lastIndexOf(byte b) {
+        for (int i = size - 1; i >= 0; i--)
+            if (bytes[i] == b)
+                return i;
+        return -1;
+    }
+
+    /** Move the first bytes into a new capture, and keep only the rest here */
+    BodyCapture split(int length) {
+        BodyCapture head;
+        if (length <= INITIAL_CAPACITY) {
+            head = new BodyCapture(Arrays.copyOf(bytes, length));
+        } else {
+            head = new BodyCapture(limit);
+            head.write(bytes, 0, length);
+        }
+        System.arraycopy(bytes, length, bytes, 0, size - length);
+        size -= length;
+        return head;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            var grown = Arrays.copyOf(bytes, Math.min(limit, Math.max(required, bytes.length * 2)));
+            if (bytes == pooled) {
+                BufferPool.INSTANCE.release(pooled);
+                pooled = null;
+            }
+            bytes = grown;
+        }
+    }
+
+    /** The captured bytes; supports mark/reset */
+    InputStream inputStream() {
+        return new ByteArrayInputStream(bytes, 0, size);
+    }
+
+    void copyTo(ByteBuffer target, int length) {
+        target.put(bytes, 0, length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long truncated() {
+        return truncated;
+    }
+
+    String toString(Charset charset) {
+        var text = new StringBuilder(size);
+        decode(charset, chars -> text.append(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+        return text.toString();
+    }
+
+    void forEachLine(Charset charset, Consumer<String> consumer) {
+        var lines = new Lines(consumer);
+        decode(charset, lines);
+        lines.finish();
+    }
+
+    /**
+     * Decode the captured bytes in chunks into a small char buffer that is reused by the current thread,
+     * so the consumer must process each chunk before it returns.
+     * Multibyte sequences that are cut off by the size limit are dropped instead of garbled.
+     */
+    private void decode(Charset charset, Consumer<CharBuffer> consumer) {
+        DECODING.get().decode(charset, ByteBuffer.wrap(bytes, 0, size), truncated == 0, consumer);
+    }
+
+    private static class Decoding {
+        private static final int CHUNK_CHARS = 8 * 1024;
+
+        private final CharBuffer chars = CharBuffer.allocate(CHUNK_CHARS);
+        private CharsetDecoder decoder;
+
+        void decode(Charset charset, ByteBuffer in, boolean complete, Consumer<CharBuffer> consumer) {
+            if (decoder == null || !decoder.charset().equals(charset))
+                decoder = charset.newDecoder()
+                        .onMalformedInput(REPLACE)
+                        .onUnmappableCharacter(REPLACE);
+            else
+                decoder.reset();
+            CoderResult result;
+            do {
+                chars.clear();
+                result = decoder.decode(in, chars, complete);
+                consumer.accept(chars.flip());
+            } while (result.isOverflow());
+            if (complete) {
+                do {
+                    chars.clear();
+                    result = decoder.flush(chars);
+                    consumer.accept(chars.flip());
+                } while (result.isOverflow());
+            }
+        }
+    }
+
+    /** Splits the decoded chunks into lines, also when a line (or a CRLF) spans chunks */
+    private static class Lines implements Consumer<CharBuffer> {
+        private final Consumer<String> consumer;
+        private final StringBuilder line = new StringBuilder();
+        private boolean afterCr;
+
+        Lines(Consumer<String> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(CharBuffer chars) {
+            var array = chars.array();
+            var offset = chars.arrayOffset();
+            var start = chars.position();
+            for (int i = chars.position(); i < chars.limit(); i++) {
+                var c = array[offset + i];
+                if (afterCr) {
+                    afterCr = false;
+                    if (c == '\n') {
+                        start = i + 1;
+                        continue;
+                    }
+                }
+                if (c == '\n' || c == '\r') {
+                    line.append(array, offset + start, i - start);
+                    consumer.accept(line.toString());
+                    line.setLength(0);
+                    afterCr = c == '\r';
+                    start = i + 1;
+                }
+            }
+            line.append(array, offset + start, chars.limit() - start);
+        }
+
+        void finish() {
+            if (!line.isEmpty())
+                consumer.accept(line.toString());
+        }
+    }
+}
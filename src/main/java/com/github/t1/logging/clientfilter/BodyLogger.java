@@ -0,0 +1,151 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Body;
+import com.github.t1.logging.clientfilter.Message.Head;
+import jakarta.ws.rs.core.MediaType;
+
+import java.nio.charset.Charset;
+
+import static com.github.t1.logging.clientfilter.LoggingTools.charset;
+import static jakarta.ws.rs.core.MediaType.SERVER_SENT_EVENTS_TYPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Captures the body bytes passing through one of the logging streams,
+ * and sends them to the {@link Exchange} when the stream is finished.
+ * <p>
+ * In streaming mode, i.e. for <code>text/event-stream</code> or with <code>jax-rs-logging.streaming=true</code>,
+ * the complete lines are sent as soon as they have been written, so long-lived streams are logged in time,
+ * and we only need memory for the current line. After <code>jax-rs-logging.streaming.max-bytes</code>,
+ * the rest of the stream is only counted.
+ * <p>
+ * <code>multipart/*</code> bodies are reduced by the {@link MultipartScanner} before they are captured,
+ * which also converts them to UTF-8.
+ */
+class BodyLogger {
+    static BodyLogger of(Exchange exchange, Head head, MediaType mediaType, ContentEncoding encoding, int maxBodyBytes) {
+        var charset = charset(mediaType);
+        return new BodyLogger(exchange, head, charset,
+                LoggingConfig.STREAMING || mediaType.isCompatible(SERVER_SENT_EVENTS_TYPE),
+                BodyMasker.Format.of(mediaType, charset), MultipartScanner.boundary(mediaType), encoding, maxBodyBytes);
+    }
+
+    private final Exchange exchange;
+    private final Head head;
+    private final Charset charset;
+    private final boolean streaming;
+    private final BodyMasker masker;
+    private final MultipartScanner multipart;
+    private final BodyMasker.Format format;
+    private final ContentEncoding encoding;
+    private final int limit;
+    private final BodyCapture capture;
+    private long budget = LoggingConfig.STREAMING_MAX_BYTES;
+    private boolean emitted;
+    private boolean finished;
+
+    BodyLogger(Exchange exchange, Head head, Charset charset, boolean streaming) {
+        this(exchange, head, charset, streaming, null, null, ContentEncoding.IDENTITY, LoggingConfig.MAX_BODY_BYTES);
+    }
+
+    /**
+     * @param streaming    ignored for compressed bodies, as we can't split them into lines
+     * @param format       the format of the body to mask the redacted fields in; <code>null</code> to not mask anything
+     * @param boundary     of a multipart body to scan; <code>null</code> for other bodies. Ignored for compressed bodies.
+     * @param encoding     compressed bodies are captured as they are, and masked when they are decoded
+     * @param maxBodyBytes the size of the capture; in streaming mode, the maximum line length
+     */
+    BodyLogger(Exchange exchange, Head head, Charset charset, boolean streaming, BodyMasker.Format format,
+               String boundary, ContentEncoding encoding, int maxBodyBytes) {
+        var identity = encoding == ContentEncoding.IDENTITY;
+        this.exchange = exchange;
+        this.head = head;
+        this.streaming = streaming && identity;
+        this.limit = maxBodyBytes;
+        this.capture = new BodyCapture(maxBodyBytes);
+        this.masker = (format == null || !identity) ? null : format.masker(this::capture);
+        this.multipart = (boundary == null || !identity) ? null : new MultipartScanner(boundary, this::capture);
+        this.charset = (multipart == null) ? charset : UTF_8; // the scanner converts the text parts
+        this.format = identity ? null : format;
+        this.encoding = encoding;
+    }
+
+    void write(int b) {
+        if (multipart != null)
+            multipart.write(b);
+        else if (masker != null)
+            masker.write(b);
+        else
+            capture(b);
+    }
+
+    void write(byte[] b, int off, int len) {
+        if (multipart != null)
+            multipart.write(b, off, len);
+        else if (masker != null)
+            masker.write(b, off, len);
+        else
+            capture(b, off, len);
+    }
+
+    private void capture(int b) {
+        if (!streaming) {
+            capture.write(b);
+        } else if (budget <= 0 || limit == 0) {
+            capture.skip(1);
+        } else {
+            budget--;
+            capture.write(b);
+            if (b == '\n' || capture.size() == limit)
+                emitLines();
+        }
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        if (!streaming) {
+            capture.write(b, off, len);
+            return;
+        }
+        var captured = (int) Math.min(len, budget);
+        budget -= captured;
+        var written = 0;
+        while (written < captured) {
+            var chunk = Math.min(captured - written, limit - capture.size());
+            if (chunk == 0)
+                break;
+            capture.write(b, off + written, chunk);
+            emitLines();
+            written += chunk;
+        }
+        capture.skip(len - written);
+    }
+
+    /** Send all complete lines; or the whole buffer, if it's full without a line break */
+    private void emitLines() {
+        var end = capture.lastIndexOf((byte) '\n') + 1;
+        if (end == 0 && capture.size() == limit)
+            end = capture.size();
+        if (end > 0) {
+            emit(capture.split(end));
+        }
+    }
+
+    /** Send what has been captured so far, if that has not already happened. */
+    void finish() {
+        if (finished)
+            return;
+        finished = true;
+        if (multipart != null)
+            multipart.finish();
+        if (!emitted || capture.size() > 0 || capture.truncated() > 0)
+            emit(capture);
+        else
+            capture.release(); // streaming mode already emitted everything
+    }
+
+    private void emit(BodyCapture body) {
+        emitted = true;
+        Metrics.INSTANCE.body(body);
+        exchange.emitBody(new Body(head, body, charset, encoding, format));
+    }
+}
@@ -0,0 +1,304 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.MediaType;
+
+import java.nio.charset.Charset;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Replaces the values of the {@link LoggingConfig#REDACT_FIELDS redacted fields} in JSON or XML bodies
+ * with <code>***</code>, while the bytes flow into the {@link BodyCapture}.
+ * It's a small state machine that looks at every byte only once, without parsing the document into a tree,
+ * and without buffering anything but the current field name.
+ * <p>
+ * In JSON, only scalar values are masked, i.e. strings, numbers, and literals; for objects or arrays,
+ * the fields within are checked again. In XML, the complete content of a redacted element is masked,
+ * including nested elements, comments, and CDATA sections, up to its own end tag. XML attributes are not masked.
+ */
+abstract class BodyMasker {
+    static final NameSet FIELDS = new NameSet(LoggingConfig.REDACT_FIELDS);
+
+    /** Where the masked bytes go */
+    interface Sink {
+        void write(byte[] b, int off, int len);
+    }
+
+    enum Format {
+        JSON, XML;
+
+        /** @return <code>null</code> if the body is neither JSON nor XML, or there is nothing to mask */
+        static Format of(MediaType mediaType, Charset charset) {
+            if (mediaType == null || FIELDS.isEmpty() || !isAsciiCompatible(charset))
+                return null;
+            var subtype = mediaType.getSubtype();
+            if (subtype.equals("json") || subtype.endsWith("+json"))
+                return JSON;
+            if (subtype.equals("xml") || subtype.endsWith("+xml"))
+                return XML;
+            return null;
+        }
+
+        /** we scan the bytes for ASCII field names and delimiters */
+        private static boolean isAsciiCompatible(Charset charset) {
+            return charset.equals(UTF_8) || charset.equals(ISO_8859_1) || charset.equals(US_ASCII);
+        }
+
+        BodyMasker masker(Sink sink) {
+            return (this == JSON) ? new Json(sink) : new Xml(sink);
+        }
+    }
+
+    private final Sink sink;
+    private final byte[] single = new byte[1];
+    private final byte[] name = new byte[FIELDS.maxLength()];
+    /** -1 if the name is too long to be one of the {@link #FIELDS} */
+    private int nameLength;
+    /** to be written before the current byte */
+    byte[] replacement;
+
+    BodyMasker(Sink sink) {
+        this.sink = sink;
+    }
+
+    void write(int b) {
+        var copy = next((byte) b);
+        if (replacement != null) {
+            sink.write(replacement, 0, replacement.length);
+            replacement = null;
+        }
+        if (copy) {
+            single[0] = (byte) b;
+            sink.write(single, 0, 1);
+        }
+    }
+
+    void write(byte[] b, int off, int len) {
+        var run = off;
+        var end = off + len;
+        for (int i = off; i < end; i++) {
+            var copy = next(b[i]);
+            if (replacement != null || !copy) {
+                if (i > run)
+                    sink.write(b, run, i - run);
+                if (replacement != null) {
+                    sink.write(replacement, 0, replacement.length);
+                    replacement = null;
+                }
+                run = copy ? i : i + 1;
+            }
+        }
+        if (end > run)
+            sink.write(b, run, end - run);
+    }
+
+    /** @return should this byte be copied; set the {@link #replacement} to write something before */
+    abstract boolean next(byte b);
+
+    void startName() {
+        nameLength = 0;
+    }
+
+    void appendName(byte b) {
+        if (nameLength >= 0 && nameLength < name.length)
+            name[nameLength++] = b;
+        else
+            nameLength = -1;
+    }
+
+    void mask(byte[] replacement) {
+        this.replacement = replacement;
+        Metrics.INSTANCE.redacted();
+    }
+
+    boolean nameIsRedacted() {
+        return nameLength > 0 && FIELDS.contains(name, nameLength);
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static final class Json extends BodyMasker {
+        private static final byte[] OPEN_MASK = {'"', '*', '*', '*'};
+        private static final byte[] MASK = {'"', '*', '*', '*', '"'};
+
+        private enum State {TEXT, STRING, STRING_ESCAPE, AFTER_NAME, VALUE, MASKED_STRING, MASKED_ESCAPE, MASKED_LITERAL}
+
+        private State state = State.TEXT;
+
+        Json(Sink sink) {
+            super(sink);
+        }
+
+        @Override
+        boolean next(byte b) {
+            switch (state) {
+                case TEXT:
+                    if (b == '"') {
+                        startName();
+                        state = State.STRING;
+                    }
+                    return true;
+                case STRING:
+                    if (b == '\\')
+                        state = State.STRING_ESCAPE;
+                    else if (b == '"')
+                        state = nameIsRedacted() ? State.AFTER_NAME : State.TEXT;
+                    else
+                        appendName(b);
+                    return true;
+                case STRING_ESCAPE:
+                    appendName(b); // the unescaped name wouldn't match, anyway
+                    state = State.STRING;
+                    return true;
+                case AFTER_NAME:
+                    if (isWhitespace(b))
+                        return true;
+                    if (b == ':') {
+                        state = State.VALUE;
+                        return true;
+                    }
+                    state = State.TEXT; // it was a string value, not a field name
+                    return next(b);
+                case VALUE:
+                    if (isWhitespace(b))
+                        return true;
+                    if (b == '"') {
+                        mask(OPEN_MASK);
+                        state = State.MASKED_STRING;
+                        return false;
+                    }
+                    if (b == '{' || b == '[') {
+                        state = State.TEXT;
+                        return true;
+                    }
+                    mask(MASK);
+                    state = State.MASKED_LITERAL;
+                    return false;
+                case MASKED_STRING:
+                    if (b == '\\')
+                        state = State.MASKED_ESCAPE;
+                    else if (b == '"') {
+                        state = State.TEXT;
+                        return true;
+                    }
+                    return false;
+                case MASKED_ESCAPE:
+                    state = State.MASKED_STRING;
+                    return false;
+                case MASKED_LITERAL:
+                    if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                        state = State.TEXT;
+                        return true;
+                    }
+                    return false;
+            }
+            throw new IllegalStateException("unexpected state " + state);
+        }
+    }
+
+    private static final class Xml extends BodyMasker {
+        private static final byte[] END_AND_MASK = {'>', '*', '*', '*'};
+        private static final byte[] LT = {'<'};
+
+        private enum State {TEXT, TAG_START, TAG_NAME, TAG, MASKED_TEXT, MASKED_LT, MASKED_TAG, MASKED_MARKUP}
+
+        private State state = State.TEXT;
+        private boolean redacted;
+        private byte last;
+        private byte beforeLast;
+        /** the number of open elements nested in the masked element */
+        private int depth;
+
+        Xml(Sink sink) {
+            super(sink);
+        }
+
+        @Override
+        boolean next(byte b) {
+            switch (state) {
+                case TEXT:
+                    if (b == '<')
+                        state = State.TAG_START;
+                    return true;
+                case TAG_START:
+                    if (b == '/' || b == '!' || b == '?') {
+                        tag(false);
+                    } else {
+                        startName();
+                        appendName(b);
+                        state = State.TAG_NAME;
+                    }
+                    return true;
+                case TAG_NAME:
+                    if (isWhitespace(b) || b == '>' || b == '/') {
+                        tag(nameIsRedacted());
+                        return next(b);
+                    }
+                    if (b == ':')
+                        startName(); // only the local name counts
+                    else
+                        appendName(b);
+                    return true;
+                case TAG:
+                    if (b == '>') {
+                        if (redacted && last != '/') {
+                            mask(END_AND_MASK);
+                            depth = 0;
+                            state = State.MASKED_TEXT;
+                            return false;
+                        }
+                        state = State.TEXT;
+                    }
+                    last = b;
+                    return true;
+                case MASKED_TEXT:
+                    if (b == '<')
+                        state = State.MASKED_LT;
+                    return false;
+                case MASKED_LT:
+                    if (b == '/' && depth == 0) { // the end tag of the masked element
+                        replacement = LT;
+                        tag(false);
+                        return true;
+                    }
+                    if (b == '!' || b == '?') { // comment, CDATA, or processing instruction
+                        last = beforeLast = 0;
+                        state = State.MASKED_MARKUP;
+                        return false;
+                    }
+                    if (b == '/')
+                        depth--;
+                    else
+                        depth++;
+                    last = b;
+                    state = State.MASKED_TAG;
+                    return false;
+                case MASKED_TAG:
+                    if (b == '>') {
+                        if (last == '/') // an empty element
+                            depth--;
+                        state = State.MASKED_TEXT;
+                    }
+                    last = b;
+                    return false;
+                case MASKED_MARKUP:
+                    if (b == '>' && (last == '?' || last == beforeLast && (last == '-' || last == ']')))
+                        state = State.MASKED_TEXT;
+                    beforeLast = last;
+                    last = b;
+                    return false;
+            }
+            throw new IllegalStateException("unexpected state " + state);
+        }
+
+        private void tag(boolean redacted) {
+            this.redacted = redacted;
+            this.last = 0;
+            this.state = State.TAG;
+        }
+    }
+}
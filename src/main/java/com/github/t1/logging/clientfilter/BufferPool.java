@@ -0,0 +1,137 @@
+package com.github.t1.logging.clientfilter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * A bounded pool of the byte arrays used by the {@link BodyCapture}s, so logging doesn't produce garbage per request.
+ * Every platform thread has a single thread-local buffer;
+ * additionally, and for virtual threads (where thread-locals don't make sense), there is a fixed number
+ * of lock-free slots (<code>jax-rs-logging.buffer-pool.size</code>, default 64) that don't allocate anything when used.
+ * <p>
+ * Only buffers of the full length (<code>jax-rs-logging.max-body-bytes</code>) are kept, so a capture never has to
+ * grow a pooled buffer. When a capture releases the smaller buffer it allocated on a miss, and there is room,
+ * the pool takes a new buffer of the full length instead, so it also warms up when all bodies are small.
+ * <p>
+ * Registered as MBean <code>com.github.t1.logging:type=BufferPool</code>.
+ */
+final class BufferPool implements BufferPoolMXBean {
+    /** <code>Thread::isVirtual</code>, if we are running on Java 21+ */
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return IS_VIRTUAL != null && (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    static final BufferPool INSTANCE = new BufferPool(LoggingConfig.BUFFER_POOL_SIZE, LoggingConfig.MAX_BODY_BYTES);
+
+    static {
+        MBeans.register("type=BufferPool", INSTANCE);
+    }
+
+    private final ThreadLocal<byte[]> local = new ThreadLocal<>();
+    private final AtomicReferenceArray<byte[]> shared;
+    private final int bufferLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    /** @param bufferLength only buffers of this length are kept */
+    BufferPool(int size, int bufferLength) {
+        this.shared = new AtomicReferenceArray<>(size);
+        this.bufferLength = bufferLength;
+    }
+
+    /** @return <code>null</code> if the pool is empty; then the caller has to allocate a new buffer */
+    byte[] acquire() {
+        var thread = Thread.currentThread();
+        if (!isVirtual(thread)) {
+            var buffer = local.get();
+            if (buffer != null) {
+                local.set(null);
+                hits.increment();
+                return buffer;
+            }
+        }
+        var length = shared.length();
+        var start = slot(thread, length);
+        for (int i = 0; i < length; i++) {
+            var index = (start + i) % length;
+            var buffer = shared.get(index);
+            if (buffer != null && shared.compareAndSet(index, buffer, null)) {
+                hits.increment();
+                return buffer;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Larger buffers are dropped; smaller ones are replaced by a new one of the full length, if there is room. */
+    void release(byte[] buffer) {
+        if (buffer.length > bufferLength)
+            return;
+        var thread = Thread.currentThread();
+        if (!isVirtual(thread) && local.get() == null) {
+            local.set(fullLength(buffer));
+            return;
+        }
+        var length = shared.length();
+        var start = slot(thread, length);
+        for (int i = 0; i < length; i++) {
+            var index = (start + i) % length;
+            if (shared.get(index) == null) {
+                buffer = fullLength(buffer);
+                if (shared.compareAndSet(index, null, buffer))
+                    return;
+            }
+        }
+        if (buffer.length == bufferLength)
+            discarded.increment();
+    }
+
+    private byte[] fullLength(byte[] buffer) {
+        return (buffer.length == bufferLength) ? buffer : new byte[bufferLength];
+    }
+
+    /** spread the threads over the slots, to reduce contention */
+    private static int slot(Thread thread, int length) {
+        return (length == 0) ? 0 : (int) (thread.getId() % length);
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    @Override
+    public int getSharedSize() {
+        return shared.length();
+    }
+}
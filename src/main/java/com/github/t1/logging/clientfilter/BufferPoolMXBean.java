@@ -0,0 +1,17 @@
+package com.github.t1.logging.clientfilter;
+
+/**
+ * The statistics of the pool of capture buffers.
+ */
+public interface BufferPoolMXBean {
+    /** A pooled buffer could be reused */
+    long getHits();
+
+    /** The pool was empty, so a new buffer had to be allocated */
+    long getMisses();
+
+    /** The pool was full, so a buffer of the full length was left for the garbage collector */
+    long getDiscarded();
+
+    int getSharedSize();
+}
@@ -0,0 +1,221 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Body;
+import com.github.t1.logging.clientfilter.Message.Event;
+import com.github.t1.logging.clientfilter.Message.Head;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.github.t1.logging.clientfilter.Message.logAt;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes the {@link Message}s as compact binary records to a rolling set of memory-mapped files
+ * <code>capture-&lt;n&gt;.jrlc</code> in the directory <code>jax-rs-logging.capture-file.dir</code>,
+ * and logs only a summary line with the file name and the offset of the record.
+ * Recording complete bodies is then a sequential write into memory instead of many formatted log events.
+ * The {@link HarExporter} converts the files to HAR.
+ * <p>
+ * Every file has a fixed size (<code>jax-rs-logging.capture-file.size</code>, default 64 MiB) and starts with
+ * the {@link #MAGIC} number and the {@link #VERSION} (short). When a record doesn't fit anymore, the next file is started,
+ * and only the last <code>jax-rs-logging.capture-file.count</code> (default 4) files are kept.
+ * <p>
+ * All numbers are big-endian; strings are UTF-8, prefixed with their length as an int.
+ * Every record starts with its length (int, excluding the length itself; 0 marks the end of the file),
+ * the type ({@link #HEAD} or {@link #BODY}), the {@link Exchange#id() exchange id} (long), the epoch millis (long),
+ * and the {@link Kind} ordinal (byte).
+ * <ul>
+ * <li>A head continues with the method, the uri, the status code (short, -1 for requests), the reason phrase,
+ * the duration in nanos (long, -1 for requests), the number of headers (int), and the header names and values.
+ * <li>A body continues with the charset name, the number of truncated bytes (long), the size (int), and the bytes.
+ * </ul>
+ */
+@Slf4j
+final class CaptureFile implements Emitter {
+    static final int MAGIC = 0x4A524C43; // JRLC
+    static final short VERSION = 1;
+    static final byte HEAD = 1;
+    static final byte BODY = 2;
+
+    private static final String PREFIX = "capture-";
+    private static final String SUFFIX = ".jrlc";
+    private static final int FILE_HEADER_SIZE = 4 + 2;
+    private static final int RECORD_HEADER_SIZE = 1 + 8 + 8 + 1;
+
+    static Emitter sink(String directory) {
+        try {
+            return new CaptureFile(Path.of(directory), LoggingConfig.CAPTURE_FILE_SIZE, LoggingConfig.CAPTURE_FILE_COUNT);
+        } catch (IOException | RuntimeException e) {
+            log.warn("can't write capture files to {}; logging the messages instead", directory, e);
+            return Message::emit;
+        }
+    }
+
+    /** @return the number of the capture file, or -1 if it isn't one */
+    static int index(Path file) {
+        var name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX))
+            return -1;
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final Path directory;
+    private final int fileSize;
+    private final int fileCount;
+    /** to build the head records, before we know their length */
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private int index;
+    private String fileName;
+    private MappedByteBuffer buffer;
+
+    CaptureFile(Path directory, int fileSize, int fileCount) throws IOException {
+        if (fileSize < 1024)
+            throw new IllegalArgumentException("capture file size must be at least 1024 but is " + fileSize);
+        this.directory = Files.createDirectories(directory);
+        this.fileSize = fileSize;
+        this.fileCount = Math.max(fileCount, 1);
+        try (var files = Files.list(directory)) {
+            this.index = files.mapToInt(CaptureFile::index).max().orElse(-1); // don't overwrite previous captures
+        }
+        roll();
+    }
+
+    @Override
+    public synchronized void send(Message message) {
+        try {
+            if (message instanceof Head head) {
+                var offset = write(head);
+                logAt(head.level(), head.log(), head.kind().capturedTitle, head.method(), head.uri(), fileName, offset);
+            } else if (message instanceof Body body) {
+                writeBody(body);
+            } else if (message instanceof Event event && event.continued()) {
+                writeBody(event.body());
+            } else if (message instanceof Event event) {
+                var head = event.head();
+                var offset = write(head);
+                var file = fileName;
+                if (event.body() != null) {
+                    var decoded = event.body().decoded();
+                    write(decoded);
+                    decoded.discard();
+                }
+                logAt(head.level(), head.log(), head.kind().capturedTitle, head.method(), head.uri(), file, offset);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("can't write to capture file {}", fileName, e);
+        } finally {
+            message.discard();
+        }
+    }
+
+    /** A body without its head, i.e. in streaming mode */
+    private void writeBody(Body body) throws IOException {
+        var decoded = body.decoded();
+        var offset = write(decoded);
+        var head = body.head();
+        logAt(head.level(), head.log(), "{} body of {} bytes [{}:{}]", head.kind().prefix,
+                decoded.capture().size() + decoded.capture().truncated(), fileName, offset);
+        decoded.discard();
+    }
+
+    private int write(Head head) throws IOException {
+        scratch.clear();
+        ensureScratch(RECORD_HEADER_SIZE);
+        putRecordHeader(scratch, HEAD, head.exchange(), head.kind());
+        putString(head.method());
+        putString(String.valueOf(head.uri()));
+        var status = head.status();
+        ensureScratch(2);
+        scratch.putShort((status == null) ? -1 : (short) status.getStatusCode());
+        putString((status == null || status.getReasonPhrase() == null) ? "" : status.getReasonPhrase());
+        ensureScratch(8 + 4);
+        scratch.putLong((head.duration() == null) ? -1 : head.duration().toNanos());
+        scratch.putInt(head.headers().size());
+        for (var header : head.headers().entrySet()) {
+            putString(header.getKey());
+            putString(header.getValue());
+        }
+        scratch.flip();
+
+        var offset = reserve(scratch.remaining());
+        buffer.putInt(scratch.remaining()).put(scratch);
+        return offset;
+    }
+
+    private int write(Body body) throws IOException {
+        var capture = body.capture();
+        var charset = body.charset().name().getBytes(UTF_8);
+        var fixedLength = RECORD_HEADER_SIZE + 4 + charset.length + 8 + 4;
+        var size = Math.min(capture.size(), maxRecordLength() - fixedLength); // too large for a single file
+        var truncated = capture.truncated() + capture.size() - size;
+
+        var offset = reserve(fixedLength + size);
+        buffer.putInt(fixedLength + size);
+        putRecordHeader(buffer, BODY, body.head().exchange(), body.head().kind());
+        buffer.putInt(charset.length).put(charset);
+        buffer.putLong(truncated);
+        buffer.putInt(size);
+        capture.copyTo(buffer, size);
+        return offset;
+    }
+
+    private static void putRecordHeader(ByteBuffer target, byte type, long exchange, Kind kind) {
+        target.put(type).putLong(exchange).putLong(System.currentTimeMillis()).put((byte) kind.ordinal());
+    }
+
+    private void putString(String string) {
+        var bytes = string.getBytes(UTF_8);
+        ensureScratch(4 + bytes.length);
+        scratch.putInt(bytes.length).put(bytes);
+    }
+
+    private void ensureScratch(int length) {
+        if (scratch.remaining() < length) {
+            var bigger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + length));
+            scratch.flip();
+            scratch = bigger.put(scratch);
+        }
+    }
+
+    private int maxRecordLength() {
+        return fileSize - FILE_HEADER_SIZE - 4;
+    }
+
+    /** @return the offset of the record, after starting the next file, if it doesn't fit into the current one */
+    private int reserve(int length) throws IOException {
+        if (length > maxRecordLength())
+            throw new IOException("record of " + length + " bytes doesn't fit into a capture file");
+        if (buffer.remaining() < 4 + length)
+            roll();
+        return buffer.position();
+    }
+
+    private void roll() throws IOException {
+        index++;
+        var file = directory.resolve(PREFIX + index + SUFFIX);
+        try (var channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            buffer = channel.map(READ_WRITE, 0, fileSize); // stays valid after the channel is closed
+        }
+        buffer.putInt(MAGIC).putShort(VERSION);
+        fileName = file.getFileName().toString();
+        try (var files = Files.list(directory)) {
+            for (var old : files.filter(path -> index(path) >= 0 && index(path) <= index - fileCount).toList())
+                Files.deleteIfExists(old);
+        }
+    }
+}
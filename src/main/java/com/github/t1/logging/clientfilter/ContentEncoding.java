@@ -0,0 +1,121 @@
+package com.github.t1.logging.clientfilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The <code>Content-Encoding</code>s we can log. Compressed bodies are captured as they pass through,
+ * i.e. compressed, so the hot path stays the same; they are decompressed only when they are emitted,
+ * i.e. on the logging (or async) thread, and only up to <code>jax-rs-logging.max-decompressed-bytes</code>.
+ */
+enum ContentEncoding {
+    IDENTITY, GZIP, DEFLATE;
+
+    /** @return <code>null</code> if we can't decode the encoding, e.g. <code>br</code> or multiple encodings */
+    static ContentEncoding of(String header) {
+        if (header == null)
+            return IDENTITY;
+        return switch (header.trim().toLowerCase(Locale.ROOT)) {
+            case "", "identity" -> IDENTITY;
+            case "gzip", "x-gzip" -> GZIP;
+            case "deflate" -> DEFLATE;
+            default -> null;
+        };
+    }
+
+    /**
+     * Decompress the captured bytes into a new capture, masking the redacted fields.
+     * We stop at the limit, so a small capture of very compressible data can't make us inflate megabytes on the
+     * emitting thread; the compressed bytes that are left are counted as truncated, as the decompressed size is unknown.
+     * If the compressed body was already truncated when it was captured, those (compressed) bytes are counted as well.
+     *
+     * @param format to {@link BodyMasker mask} the body; <code>null</code> to not mask anything
+     */
+    BodyCapture decode(BodyCapture compressed, BodyMasker.Format format) {
+        var decoded = new BodyCapture(LoggingConfig.MAX_DECOMPRESSED_BYTES);
+        BodyMasker.Sink sink = decoded::write;
+        if (format != null)
+            sink = format.masker(sink)::write;
+        var source = compressed.inputStream();
+        try (var decompressed = decompress(source)) {
+            var buffer = new byte[4096];
+            var remaining = LoggingConfig.MAX_DECOMPRESSED_BYTES;
+            while (remaining > 0) {
+                var count = decompressed.read(buffer, 0, Math.min(buffer.length, remaining));
+                if (count < 0)
+                    break;
+                sink.write(buffer, 0, count);
+                remaining -= count;
+            }
+            if (remaining == 0 && decompressed.read() >= 0)
+                decoded.skip(Math.max(1, source.available() + buffered(decompressed)));
+        } catch (EOFException e) {
+            // the compressed body was truncated
+        } catch (IOException e) {
+            var message = ("<can't decode " + name().toLowerCase(Locale.ROOT) + ": " + e.getMessage() + ">").getBytes(UTF_8);
+            decoded.write(message, 0, message.length);
+        }
+        decoded.skip(compressed.truncated());
+        return decoded;
+    }
+
+    private InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case IDENTITY -> in;
+            case GZIP -> new Gzip(in);
+            case DEFLATE -> new Deflate(in, new Inflater(!isZlib(in)));
+        };
+    }
+
+    /** The compressed bytes the inflater has read from the source, but not consumed yet */
+    private static int buffered(InputStream decompressed) {
+        return (decompressed instanceof Inflating inflating) ? inflating.buffered() : 0;
+    }
+
+    private interface Inflating {
+        int buffered();
+    }
+
+    private static final class Gzip extends GZIPInputStream implements Inflating {
+        Gzip(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        public int buffered() {
+            return inf.getRemaining();
+        }
+    }
+
+    private static final class Deflate extends InflaterInputStream implements Inflating {
+        Deflate(InputStream in, Inflater inflater) {
+            super(in, inflater);
+        }
+
+        @Override
+        public int buffered() {
+            return inf.getRemaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            inf.end(); // we passed our own inflater, so it's not ended by the stream
+        }
+    }
+
+    /** Many servers send raw deflate data without the zlib wrapper, although the RFC requires it */
+    private static boolean isZlib(InputStream in) throws IOException {
+        in.mark(2);
+        var header = (in.read() << 8) | in.read();
+        in.reset();
+        return (header & 0x0F00) == 0x0800 && header % 31 == 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.t1.logging.clientfilter;
+
+/**
+ * Where the {@link Exchange}s send their {@link Message}s to.
+ * By default, they are logged directly on the calling thread;
+ * with <code>jax-rs-logging.async=true</code> they are handed over to an {@link AsyncEmitter}.
+ * With <code>jax-rs-logging.capture-file.dir</code>, they are written to a {@link CaptureFile} instead of being logged.
+ */
+interface Emitter {
+    /** The final destination of the messages */
+    Emitter SINK = (LoggingConfig.CAPTURE_DIR == null) ? Message::emit : CaptureFile.sink(LoggingConfig.CAPTURE_DIR);
+
+    Emitter INSTANCE = LoggingConfig.ASYNC
+            ? new AsyncEmitter(LoggingConfig.ASYNC_QUEUE_SIZE, LoggingConfig.ASYNC_OVERFLOW, SINK)
+            : SINK;
+
+    static void emit(Message message) {
+        INSTANCE.send(message);
+    }
+
+    void send(Message message);
+}
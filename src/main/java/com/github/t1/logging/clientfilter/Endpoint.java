@@ -0,0 +1,204 @@
+package com.github.t1.logging.clientfilter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * What we know about a JAX-RS resource method or MP REST Client interface method.
+ * This is resolved only once per method, so the per-request overhead is a single map lookup,
+ * even (and especially) when logging is disabled.
+ * <p>
+ * The {@link LoggingPolicy} is compiled from the configuration and the {@link LogTraffic} annotation, if any.
+ * It can be changed at runtime via JMX. It's replaced as a whole (copy-on-write),
+ * so the filters see a consistent snapshot with a single volatile read.
+ */
+final class Endpoint implements EndpointMXBean {
+    private static final Map<Method, Endpoint> CACHE = new ConcurrentHashMap<>();
+
+    static Endpoint of(Method method) {
+        return CACHE.computeIfAbsent(method, Endpoint::new);
+    }
+
+    /** For requests where we can't find out which method handles them */
+    static Endpoint fallback(Class<?> filterClass) {
+        return new Endpoint(filterClass.getName());
+    }
+
+    private final String name;
+    private final Logger log;
+    private final LogTraffic annotation;
+    private final LatencyHistogram latency;
+    private volatile LoggingPolicy policy;
+
+    private Endpoint(Method method) {
+        this(method.getDeclaringClass().getName() + "." + method.getName(), params(method), annotation(method));
+    }
+
+    private Endpoint(String name) {
+        this(name, null, null);
+    }
+
+    /** @param params the simple names of the parameter types, to tell overloaded methods apart in JMX */
+    private Endpoint(String name, String params, LogTraffic annotation) {
+        this.name = name;
+        this.log = LoggerFactory.getLogger(name);
+        this.annotation = annotation;
+        this.policy = LoggingPolicy.of(name, annotation);
+        this.latency = Latencies.register(name, params);
+        MBeans.register("type=Endpoint," + MBeans.endpoint(name, params), this);
+    }
+
+    private static String params(Method method) {
+        return Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName).collect(joining(","));
+    }
+
+    private static LogTraffic annotation(Method method) {
+        var annotation = method.getAnnotation(LogTraffic.class);
+        return (annotation != null) ? annotation : method.getDeclaringClass().getAnnotation(LogTraffic.class);
+    }
+
+    String name() {
+        return name;
+    }
+
+    Logger log() {
+        return log;
+    }
+
+    /** Read this only once per request */
+    LoggingPolicy policy() {
+        return policy;
+    }
+
+    boolean recordsLatency() {
+        return latency != null;
+    }
+
+    /** @param startNanos the {@link Latencies#START_NANOS_PROPERTY}; <code>null</code> if the request filter was not called */
+    void recordLatency(Object startNanos, int status) {
+        if (latency != null && startNanos != null) {
+            latency.record(System.nanoTime() - (long) startNanos, status);
+            Latencies.startSummary();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private synchronized void update(UnaryOperator<LoggingPolicy> change) {
+        policy = change.apply(policy);
+    }
+
+    @Override
+    public String getEndpoint() {
+        return name;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return policy.enabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        update(p -> new LoggingPolicy(enabled, p.level(), p.headers(), p.bodies(), p.maxBodyBytes(), p.mediaTypes(),
+                p.sampleOneIn(), p.rateLimit(), p.rateLimitBurst(), p.sampler()));
+    }
+
+    @Override
+    public String getLevel() {
+        return policy.level().name();
+    }
+
+    @Override
+    public void setLevel(String level) {
+        var value = Level.valueOf(level.trim().toUpperCase(Locale.ROOT));
+        update(p -> new LoggingPolicy(p.enabled(), value, p.headers(), p.bodies(), p.maxBodyBytes(), p.mediaTypes(),
+                p.sampleOneIn(), p.rateLimit(), p.rateLimitBurst(), p.sampler()));
+    }
+
+    @Override
+    public boolean isHeaders() {
+        return policy.headers();
+    }
+
+    @Override
+    public void setHeaders(boolean headers) {
+        update(p -> new LoggingPolicy(p.enabled(), p.level(), headers, p.bodies(), p.maxBodyBytes(), p.mediaTypes(),
+                p.sampleOneIn(), p.rateLimit(), p.rateLimitBurst(), p.sampler()));
+    }
+
+    @Override
+    public boolean isBodies() {
+        return policy.bodies();
+    }
+
+    @Override
+    public void setBodies(boolean bodies) {
+        update(p -> new LoggingPolicy(p.enabled(), p.level(), p.headers(), bodies, p.maxBodyBytes(), p.mediaTypes(),
+                p.sampleOneIn(), p.rateLimit(), p.rateLimitBurst(), p.sampler()));
+    }
+
+    @Override
+    public int getMaxBodyBytes() {
+        return policy.maxBodyBytes();
+    }
+
+    @Override
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        if (maxBodyBytes < 0)
+            throw new IllegalArgumentException("max body bytes must not be negative");
+        update(p -> new LoggingPolicy(p.enabled(), p.level(), p.headers(), p.bodies(), maxBodyBytes, p.mediaTypes(),
+                p.sampleOneIn(), p.rateLimit(), p.rateLimitBurst(), p.sampler()));
+    }
+
+    @Override
+    public int getSampleOneIn() {
+        return policy.sampleOneIn();
+    }
+
+    @Override
+    public void setSampleOneIn(int sampleOneIn) {
+        update(p -> new LoggingPolicy(p.enabled(), p.level(), p.headers(), p.bodies(), p.maxBodyBytes(), p.mediaTypes(),
+                sampleOneIn, p.rateLimit(), p.rateLimitBurst()));
+    }
+
+    @Override
+    public int getRateLimit() {
+        return policy.rateLimit();
+    }
+
+    @Override
+    public void setRateLimit(int rateLimit) {
+        update(p -> new LoggingPolicy(p.enabled(), p.level(), p.headers(), p.bodies(), p.maxBodyBytes(), p.mediaTypes(),
+                p.sampleOneIn(), rateLimit, p.rateLimitBurst()));
+    }
+
+    @Override
+    public int getRateLimitBurst() {
+        return policy.rateLimitBurst();
+    }
+
+    @Override
+    public void setRateLimitBurst(int rateLimitBurst) {
+        update(p -> new LoggingPolicy(p.enabled(), p.level(), p.headers(), p.bodies(), p.maxBodyBytes(), p.mediaTypes(),
+                p.sampleOneIn(), p.rateLimit(), rateLimitBurst));
+    }
+
+    @Override
+    public void reset() {
+        update(p -> LoggingPolicy.of(name, annotation));
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.t1.logging.clientfilter;
+
+/**
+ * Control what is logged for one endpoint at runtime, i.e. a JAX-RS resource method or an MP REST Client method;
+ * registered as <code>com.github.t1.logging:type=Endpoint,endpoint=...,params=...</code> when the filters first see it;
+ * the <code>params</code> are the simple names of the parameter types, so overloaded methods are registered separately.
+ * The changes are not persisted; {@link #reset()} goes back to the configured settings.
+ */
+public interface EndpointMXBean {
+    String getEndpoint();
+
+    /** <code>false</code> to not log anything, independent of the log level */
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * The SLF4J level to log at, <code>DEBUG</code> by default.
+     * E.g. <code>INFO</code> to log the exchanges of this endpoint without changing the logging configuration.
+     */
+    String getLevel();
+
+    void setLevel(String level);
+
+    boolean isHeaders();
+
+    void setHeaders(boolean headers);
+
+    boolean isBodies();
+
+    void setBodies(boolean bodies);
+
+    int getMaxBodyBytes();
+
+    void setMaxBodyBytes(int maxBodyBytes);
+
+    int getSampleOneIn();
+
+    void setSampleOneIn(int sampleOneIn);
+
+    /** Exchanges per second; 0 for unlimited */
+    int getRateLimit();
+
+    void setRateLimit(int rateLimit);
+
+    int getRateLimitBurst();
+
+    void setRateLimitBurst(int rateLimitBurst);
+
+    /** Go back to the settings from the system properties */
+    void reset();
+}
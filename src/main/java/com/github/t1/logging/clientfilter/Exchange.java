@@ -0,0 +1,99 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Body;
+import com.github.t1.logging.clientfilter.Message.Event;
+import com.github.t1.logging.clientfilter.Message.Head;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The state of one logged exchange, kept as a request property from the request filter to the response filter,
+ * and used by the logging streams to send their messages.
+ * <p>
+ * With <code>jax-rs-logging.structured=true</code>, the head and the body are combined into a single {@link Event};
+ * in streaming mode, the head goes only into the event with the first chunk of the body.
+ * <p>
+ * With <code>jax-rs-logging.tail=true</code>, the messages of the request are held back until the response filter
+ * calls {@link #complete}: only when the status is at least <code>jax-rs-logging.tail.min-status</code> (default 500)
+ * or the exchange took at least <code>jax-rs-logging.tail.slow-millis</code> (default 1000),
+ * they are emitted, and the response is logged as well; otherwise they are discarded and the response is skipped.
+ */
+final class Exchange {
+    static final String PROPERTY = Exchange.class.getName();
+
+    /** the request head and body */
+    private static final int MAX_HELD = 2;
+
+    private final long id = ThreadLocalRandom.current().nextLong();
+    private final long startNanos = System.nanoTime();
+    private List<Message> held;
+    private boolean discarded;
+    /** the head of the last structured event with a body; further bodies of the same head are continued */
+    private Head evented;
+
+    Exchange() {
+        this(LoggingConfig.TAIL);
+    }
+
+    Exchange(boolean tail) {
+        this.held = tail ? new ArrayList<>(MAX_HELD) : null;
+    }
+
+    /** Random, so it's unique even across restarts, without any coordination */
+    long id() {
+        return id;
+    }
+
+    Duration elapsed() {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    /** @param withBody a logging stream will call {@link #emitBody} later */
+    void emitHead(Head head, boolean withBody) {
+        if (!LoggingConfig.STRUCTURED)
+            emit(head);
+        else if (!withBody)
+            emit(new Event(head, null));
+    }
+
+    synchronized void emitBody(Body body) {
+        if (!LoggingConfig.STRUCTURED) {
+            emit(body);
+        } else {
+            var continued = body.head() == evented;
+            evented = body.head();
+            emit(new Event(body.head(), body, continued));
+        }
+    }
+
+    private synchronized void emit(Message message) {
+        if (discarded || held != null && held.size() >= MAX_HELD)
+            message.discard();
+        else if (held != null)
+            held.add(message);
+        else
+            Emitter.emit(message);
+    }
+
+    /**
+     * Decide, if a tail-captured exchange qualifies to be logged.
+     *
+     * @return <code>false</code> if the response should not be logged at all
+     */
+    synchronized boolean complete(int status, Duration elapsed) {
+        if (held == null)
+            return !discarded;
+        var qualifies = status >= LoggingConfig.TAIL_MIN_STATUS || elapsed.compareTo(LoggingConfig.TAIL_SLOW) >= 0;
+        if (qualifies) {
+            held.forEach(Emitter::emit);
+        } else {
+            held.forEach(Message::discard);
+            discarded = true;
+        }
+        held = null;
+        return qualifies;
+    }
+}
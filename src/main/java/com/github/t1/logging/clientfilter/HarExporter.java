@@ -0,0 +1,223 @@
+package com.github.t1.logging.clientfilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Converts {@link CaptureFile}s to the <a href="http://www.softwareishard.com/blog/har-12-spec/">HAR</a> format,
+ * e.g. to load them into the network tab of the browser developer tools:
+ * <p>
+ * <code>java -cp jax-rs-logging.jar com.github.t1.logging.clientfilter.HarExporter /var/log/capture &gt; capture.har</code>
+ * <p>
+ * The arguments are capture files or directories containing them; the HAR is written to stdout.
+ * The request and the response are correlated by the exchange id.
+ * The custom field <code>_side</code> tells if the exchange was logged by the <code>client</code> or the <code>server</code>.
+ */
+final class HarExporter {
+    public static void main(String... args) throws IOException {
+        var exporter = new HarExporter();
+        for (var arg : args)
+            exporter.read(Path.of(arg));
+        var out = new OutputStreamWriter(System.out, UTF_8);
+        exporter.write(out);
+        out.flush();
+    }
+
+    private static final class Entry {
+        boolean client;
+        final Side request = new Side();
+        final Side response = new Side();
+    }
+
+    private static final class Side {
+        long millis;
+        String method;
+        String uri;
+        int status;
+        String reason = "";
+        long durationNanos = -1;
+        final List<Map.Entry<String, String>> headers = new ArrayList<>();
+        Charset charset;
+        byte[] body;
+        long truncated;
+    }
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>();
+
+    /** A capture file or a directory with capture files */
+    HarExporter read(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (var list = Files.list(path)) {
+                files = list.filter(file -> CaptureFile.index(file) >= 0)
+                        .sorted(Comparator.comparingInt(CaptureFile::index))
+                        .toList();
+            }
+            for (var file : files)
+                readFile(file);
+        } else {
+            readFile(path);
+        }
+        return this;
+    }
+
+    private void readFile(Path file) throws IOException {
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 6 || buffer.getInt() != CaptureFile.MAGIC || buffer.getShort() != CaptureFile.VERSION)
+            throw new IOException("not a capture file (version " + CaptureFile.VERSION + "): " + file);
+        while (buffer.remaining() >= 4) {
+            var length = buffer.getInt();
+            if (length == 0) // end of file
+                break;
+            var record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            readRecord(record);
+        }
+    }
+
+    private void readRecord(ByteBuffer record) {
+        var type = record.get();
+        var exchange = record.getLong();
+        var millis = record.getLong();
+        var kind = Kind.values()[record.get()];
+        var entry = entries.computeIfAbsent(exchange, id -> new Entry());
+        entry.client = kind == Kind.CLIENT_REQUEST || kind == Kind.CLIENT_RESPONSE;
+        var side = (kind == Kind.SERVER_REQUEST || kind == Kind.CLIENT_REQUEST) ? entry.request : entry.response;
+        if (type == CaptureFile.HEAD) {
+            side.millis = millis;
+            side.method = getString(record);
+            side.uri = getString(record);
+            side.status = record.getShort();
+            side.reason = getString(record);
+            side.durationNanos = record.getLong();
+            var count = record.getInt();
+            for (int i = 0; i < count; i++)
+                side.headers.add(Map.entry(getString(record), getString(record)));
+        } else if (type == CaptureFile.BODY) {
+            var charset = getString(record);
+            side.charset = Charset.isSupported(charset) ? Charset.forName(charset) : UTF_8;
+            side.truncated += record.getLong();
+            var bytes = new byte[record.getInt()];
+            record.get(bytes);
+            side.body = (side.body == null) ? bytes : concat(side.body, bytes); // streaming mode writes many bodies
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        var bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        var result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    void write(Appendable out) throws IOException {
+        out.append("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"jax-rs-logging\",\"version\":\"")
+                .append(String.valueOf(CaptureFile.VERSION)).append("\"},\"entries\":[");
+        var first = true;
+        for (var entry : entries.values()) {
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            writeEntry(out, entry);
+        }
+        out.append("\n]}}\n");
+    }
+
+    private void writeEntry(Appendable out, Entry entry) throws IOException {
+        var request = entry.request;
+        var response = entry.response;
+        var millis = Math.max(0, response.durationNanos) / 1_000_000d;
+        var started = (request.method != null) ? request.millis : response.millis - (long) millis;
+        out.append("{\"startedDateTime\":").append(string(Instant.ofEpochMilli(started).toString()))
+                .append(",\"time\":").append(String.valueOf(millis))
+                .append(",\"_side\":").append(entry.client ? "\"client\"" : "\"server\"");
+
+        var head = (request.method != null) ? request : response;
+        out.append(",\"request\":{\"method\":").append(string(head.method))
+                .append(",\"url\":").append(string(head.uri))
+                .append(",\"httpVersion\":\"HTTP/1.1\",\"cookies\":[],\"queryString\":[],\"headersSize\":-1");
+        writeHeaders(out, request);
+        out.append(",\"bodySize\":").append(String.valueOf(bodySize(request)));
+        if (request.body != null)
+            out.append(",\"postData\":{\"mimeType\":").append(string(mimeType(request)))
+                    .append(",\"text\":").append(string(text(request))).append("}");
+
+        out.append("},\"response\":{\"status\":").append(String.valueOf(response.status))
+                .append(",\"statusText\":").append(string(response.reason))
+                .append(",\"httpVersion\":\"HTTP/1.1\",\"cookies\":[],\"redirectURL\":\"\",\"headersSize\":-1");
+        writeHeaders(out, response);
+        out.append(",\"bodySize\":").append(String.valueOf(bodySize(response)))
+                .append(",\"content\":{\"size\":").append(String.valueOf(Math.max(0, bodySize(response))))
+                .append(",\"mimeType\":").append(string(mimeType(response)));
+        if (response.body != null)
+            out.append(",\"text\":").append(string(text(response)));
+        out.append("}},\"cache\":{},\"timings\":{\"send\":0,\"wait\":").append(String.valueOf(millis))
+                .append(",\"receive\":0}}");
+    }
+
+    private void writeHeaders(Appendable out, Side side) throws IOException {
+        out.append(",\"headers\":[");
+        for (int i = 0; i < side.headers.size(); i++) {
+            var header = side.headers.get(i);
+            out.append((i == 0) ? "" : ",")
+                    .append("{\"name\":").append(string(header.getKey()))
+                    .append(",\"value\":").append(string(header.getValue())).append("}");
+        }
+        out.append("]");
+    }
+
+    private static long bodySize(Side side) {
+        return (side.body == null) ? -1 : side.body.length + side.truncated;
+    }
+
+    private static String mimeType(Side side) {
+        for (var header : side.headers)
+            if (header.getKey().equalsIgnoreCase("Content-Type"))
+                return header.getValue();
+        return "";
+    }
+
+    private static String text(Side side) {
+        return new String(side.body, side.charset);
+    }
+
+    private static String string(String value) {
+        if (value == null)
+            return "null";
+        var out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        out.append(String.format("\\u%04x", (int) c));
+                    else
+                        out.append(c);
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+}
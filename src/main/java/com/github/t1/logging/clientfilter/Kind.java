@@ -0,0 +1,22 @@
+package com.github.t1.logging.clientfilter;
+
+/**
+ * The four parts of an exchange we log, with the prefix of their log lines.
+ */
+enum Kind {
+    SERVER_REQUEST(">>>", "got {} request {}"),
+    SERVER_RESPONSE("<<<", "sending response for {} {}"),
+    CLIENT_REQUEST(">>", "sending {} request {}"),
+    CLIENT_RESPONSE("<<", "got response for {} {}");
+
+    final String prefix;
+    final String title;
+    /** The title with the file and the offset of the record in the {@link CaptureFile} */
+    final String capturedTitle;
+
+    Kind(String prefix, String title) {
+        this.prefix = prefix;
+        this.title = title;
+        this.capturedTitle = title + " [{}:{}]";
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.t1.logging.clientfilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The registry of the {@link LatencyHistogram}s: registers them as MBeans and,
+ * with <code>jax-rs-logging.histograms.summary-seconds</code>, periodically logs a summary line for each endpoint.
+ * <p>
+ * Like the writer of the {@link AsyncEmitter}, the summary thread is started with the first recorded latency,
+ * and it stops when nothing was recorded for a whole period, so it doesn't keep the class loader of an undeployed
+ * application alive; it's also {@link #stop() stopped} when the application stops.
+ */
+@Slf4j
+final class Latencies {
+    /** The {@link System#nanoTime()} when the request filter was called */
+    static final String START_NANOS_PROPERTY = Latencies.class.getName() + ".start-nanos";
+
+    private static final List<LatencyHistogram> HISTOGRAMS = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean SUMMARIZING = new AtomicBoolean();
+    private static volatile Thread summary;
+
+    private Latencies() {}
+
+    /**
+     * @param params see {@link MBeans#endpoint(String, String)}
+     * @return <code>null</code> if the histograms are disabled
+     */
+    static LatencyHistogram register(String endpoint, String params) {
+        if (!LoggingConfig.HISTOGRAMS)
+            return null;
+        var histogram = new LatencyHistogram((params == null) ? endpoint : endpoint + "(" + params + ")");
+        HISTOGRAMS.add(histogram);
+        MBeans.register("type=Latency," + MBeans.endpoint(endpoint, params), histogram);
+        return histogram;
+    }
+
+    /** Called after recording a latency, so there is a summary thread as long as there is traffic */
+    static void startSummary() {
+        if (LoggingConfig.HISTOGRAMS_SUMMARY_SECONDS > 0)
+            startSummary(Duration.ofSeconds(LoggingConfig.HISTOGRAMS_SUMMARY_SECONDS));
+    }
+
+    static void startSummary(Duration period) {
+        if (!SUMMARIZING.get() && SUMMARIZING.compareAndSet(false, true)) {
+            var thread = new Thread(() -> summarize(period.toMillis()), "jax-rs-logging-latency-summary");
+            thread.setDaemon(true);
+            summary = thread;
+            thread.start();
+        }
+    }
+
+    static boolean isSummarizing() {
+        return SUMMARIZING.get();
+    }
+
+    /** Called when the application stops */
+    static void stop() {
+        var thread = summary;
+        if (thread != null)
+            thread.interrupt();
+    }
+
+    private static void summarize(long periodMillis) {
+        var logged = -1L; // the recording that started us is not logged, yet
+        while (true) {
+            try {
+                Thread.sleep(periodMillis);
+            } catch (InterruptedException e) {
+                SUMMARIZING.set(false);
+                return;
+            }
+            var count = count();
+            if (count == logged) {
+                SUMMARIZING.set(false);
+                // an exchange may have been recorded, but seen that we were still running
+                if (count() == count || !SUMMARIZING.compareAndSet(false, true))
+                    return;
+                continue;
+            }
+            logSummary();
+            logged = count;
+        }
+    }
+
+    private static long count() {
+        var count = 0L;
+        for (var histogram : HISTOGRAMS)
+            count += histogram.getCount();
+        return count;
+    }
+
+    private static void logSummary() {
+        for (var histogram : HISTOGRAMS)
+            if (histogram.getCount() > 0)
+                log.info("latency of {}", histogram);
+    }
+}
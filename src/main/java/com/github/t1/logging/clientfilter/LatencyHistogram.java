@@ -0,0 +1,144 @@
+package com.github.t1.logging.clientfilter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of the durations of the exchanges of one endpoint, in microseconds.
+ * The buckets are log-linear: every power of two is split into 8 sub-buckets, so the percentiles have
+ * a relative error of at most 12.5%, and all durations up to centuries fit into less than 500 counters.
+ */
+class LatencyHistogram implements LatencyHistogramMXBean {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS)
+            return (int) Math.max(micros, 0);
+        var exponent = 63 - Long.numberOfLeadingZeros(micros);
+        var subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /** the highest value that falls into this bucket */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        var exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        var subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    private final String endpoint;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    /** by status class, i.e. 1xx to 5xx; index 0 is for anything else */
+    private final LongAdder[] statusClasses = new LongAdder[6];
+
+    LatencyHistogram(String endpoint) {
+        this.endpoint = endpoint;
+        for (int i = 0; i < statusClasses.length; i++)
+            statusClasses[i] = new LongAdder();
+    }
+
+    void record(long nanos, int status) {
+        var micros = nanos / 1000;
+        buckets.incrementAndGet(bucket(micros));
+        count.increment();
+        max.accumulate(micros);
+        var statusClass = status / 100;
+        statusClasses[(statusClass >= 1 && statusClass <= 5) ? statusClass : 0].increment();
+    }
+
+    @Override
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    @Override
+    public long getP50Micros() {
+        return percentile(0.50);
+    }
+
+    @Override
+    public long getP90Micros() {
+        return percentile(0.90);
+    }
+
+    @Override
+    public long getP99Micros() {
+        return percentile(0.99);
+    }
+
+    /** The buckets may change while we iterate, so this is only approximate under load. */
+    long percentile(double fraction) {
+        var total = 0L;
+        for (int i = 0; i < BUCKETS; i++)
+            total += buckets.get(i);
+        if (total == 0)
+            return 0;
+        var rank = (long) Math.ceil(fraction * total);
+        var seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return Math.min(upperBound(i), getMaxMicros());
+        }
+        return getMaxMicros();
+    }
+
+    @Override
+    public long getStatus1xx() {
+        return statusClasses[1].sum();
+    }
+
+    @Override
+    public long getStatus2xx() {
+        return statusClasses[2].sum();
+    }
+
+    @Override
+    public long getStatus3xx() {
+        return statusClasses[3].sum();
+    }
+
+    @Override
+    public long getStatus4xx() {
+        return statusClasses[4].sum();
+    }
+
+    @Override
+    public long getStatus5xx() {
+        return statusClasses[5].sum();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets.set(i, 0);
+        count.reset();
+        max.reset();
+        for (var statusClass : statusClasses)
+            statusClass.reset();
+    }
+
+    @Override
+    public String toString() {
+        return endpoint + ": " + getCount() + " calls"
+               + ", p50=" + getP50Micros() + "µs, p90=" + getP90Micros() + "µs, p99=" + getP99Micros() + "µs, max=" + getMaxMicros() + "µs"
+               + ", 2xx=" + getStatus2xx() + ", 3xx=" + getStatus3xx() + ", 4xx=" + getStatus4xx() + ", 5xx=" + getStatus5xx();
+    }
+}
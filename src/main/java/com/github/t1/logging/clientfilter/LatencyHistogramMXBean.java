@@ -0,0 +1,32 @@
+package com.github.t1.logging.clientfilter;
+
+/**
+ * The latencies of one endpoint, i.e. the time from the request filter to the response filter;
+ * registered as <code>com.github.t1.logging:type=Latency,endpoint=...,params=...</code>
+ * when the system property <code>jax-rs-logging.histograms=true</code> is set.
+ */
+public interface LatencyHistogramMXBean {
+    String getEndpoint();
+
+    long getCount();
+
+    long getP50Micros();
+
+    long getP90Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+
+    long getStatus1xx();
+
+    long getStatus2xx();
+
+    long getStatus3xx();
+
+    long getStatus4xx();
+
+    long getStatus5xx();
+
+    void reset();
+}
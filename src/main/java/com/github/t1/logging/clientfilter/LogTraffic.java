@@ -0,0 +1,39 @@
+package com.github.t1.logging.clientfilter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Overrides what's logged for a JAX-RS resource method or an MP REST Client interface method,
+ * or for all methods of the class or interface. An annotation on the method replaces the one on the type.
+ * It's read only once per method, when the filters first see it, and compiled into the {@link LoggingPolicy};
+ * the changes via JMX start from there.
+ * <p>
+ * E.g. <code>&#64;LogTraffic(enabled = false)</code> for a health check,
+ * or <code>&#64;LogTraffic(body = false)</code> for a download.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({METHOD, TYPE})
+public @interface LogTraffic {
+    /** <code>false</code> to not log anything, independent of the log level */
+    boolean enabled() default true;
+
+    boolean headers() default true;
+
+    boolean body() default true;
+
+    /** The bytes of the body to log; -1 for the <code>jax-rs-logging.max-body-bytes</code> */
+    int maxBytes() default -1;
+
+    /**
+     * The media types of the bodies to log, e.g. <code>application/json</code>, <code>application/*+json</code>,
+     * or <code>text/*</code>. By default, JSON, XML, plain text, server-sent events, and multipart bodies are logged.
+     */
+    String[] mediaTypes() default {};
+}
@@ -1,26 +1,24 @@
 package com.github.t1.logging.clientfilter;
 
+import com.github.t1.logging.clientfilter.Message.Head;
 import jakarta.annotation.Priority;
 import jakarta.ws.rs.client.ClientRequestContext;
 import jakarta.ws.rs.client.ClientRequestFilter;
 import jakarta.ws.rs.client.ClientResponseContext;
 import jakarta.ws.rs.client.ClientResponseFilter;
-import jakarta.ws.rs.core.MediaType;
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
-import java.nio.charset.Charset;
 
-import static com.github.t1.logging.clientfilter.LoggingTools.merge;
-import static com.github.t1.logging.clientfilter.LoggingTools.safe;
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_REQUEST;
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_RESPONSE;
+import static com.github.t1.logging.clientfilter.LoggingTools.SKIPPED_PROPERTY;
+import static com.github.t1.logging.clientfilter.LoggingTools.charset;
+import static com.github.t1.logging.clientfilter.LoggingTools.headers;
 import static jakarta.ws.rs.Priorities.USER;
-import static jakarta.ws.rs.core.MediaType.CHARSET_PARAMETER;
-import static jakarta.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static jakarta.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
 
 /**
  * Note: there is no <code>&#64;Provider</code> annotation, as we register it via the {@link RegisterLoggingClientFilter},
@@ -29,65 +27,108 @@ import static java.nio.charset.StandardCharsets.ISO_8859_1;
 @Priority(USER + 900)
 public class LoggingClientFilter implements ClientRequestFilter, ClientResponseFilter {
     private static final String LOGGING_OUTPUT_STREAM_PROPERTY = LoggingOutputStream.class.getName();
+    private static final Endpoint FALLBACK = Endpoint.fallback(LoggingClientFilter.class);
 
     @Override
     public void filter(ClientRequestContext requestContext) {
-        var log = getLog(requestContext);
-        if (!log.isDebugEnabled())
+        var start = System.nanoTime();
+        try {
+            logRequest(requestContext);
+        } finally {
+            Metrics.INSTANCE.filtered(start);
+        }
+    }
+
+    private void logRequest(ClientRequestContext requestContext) {
+        Metrics.INSTANCE.seen();
+        var endpoint = getEndpoint(requestContext);
+        if (endpoint.recordsLatency())
+            requestContext.setProperty(Latencies.START_NANOS_PROPERTY, System.nanoTime());
+        var log = endpoint.log();
+        var policy = endpoint.policy();
+        if (!policy.isEnabled(log))
             return;
-        log.debug("sending {} request {}", requestContext.getMethod(), requestContext.getUri());
-        requestContext.getStringHeaders().forEach((name, values) -> log.debug(">> {}: {}", name, safe(name, values)));
-        if (requestContext.hasEntity() && isLoggable(requestContext.getMediaType())) {
-            try {
-                var entityStream = requestContext.getEntityStream();
-                OutputStream stream = new LoggingOutputStream(entityStream, ">>", log);
-                requestContext.setProperty(LOGGING_OUTPUT_STREAM_PROPERTY, stream);
-                requestContext.setEntityStream(stream);
-            } catch (RuntimeException e) {
-                log.warn("can't read entity stream... will log toString", e);
-                log.debug(">> {}", requestContext.getEntity());
-            }
+        if (!policy.sample()) {
+            requestContext.setProperty(SKIPPED_PROPERTY, true);
+            return;
+        }
+        Metrics.INSTANCE.logged();
+        var exchange = new Exchange();
+        requestContext.setProperty(Exchange.PROPERTY, exchange);
+        var head = new Head(exchange.id(), log, policy.level(), CLIENT_REQUEST, requestContext.getMethod(), requestContext.getUri(),
+                null, headers(policy, requestContext.getStringHeaders()), null);
+        var encoding = ContentEncoding.of(requestContext.getHeaderString(CONTENT_ENCODING));
+        var loggableEntity = policy.bodies() && requestContext.hasEntity() && policy.isLoggable(requestContext.getMediaType(), encoding);
+        var entityStream = loggableEntity ? getEntityStream(requestContext, log) : null;
+        exchange.emitHead(head, loggableEntity);
+        if (entityStream != null) {
+            OutputStream stream = new LoggingOutputStream(entityStream, BodyLogger.of(exchange, head, requestContext.getMediaType(), encoding, policy.maxBodyBytes()));
+            requestContext.setProperty(LOGGING_OUTPUT_STREAM_PROPERTY, stream);
+            requestContext.setEntityStream(stream);
+        } else if (loggableEntity) {
+            logEntity(exchange, head, requestContext, policy);
+        }
+    }
+
+    /** Send the <code>toString</code> of the entity like a captured body, so it's masked, held back, etc. */
+    private void logEntity(Exchange exchange, Head head, ClientRequestContext requestContext, LoggingPolicy policy) {
+        var mediaType = requestContext.getMediaType();
+        var body = BodyLogger.of(exchange, head, mediaType, ContentEncoding.IDENTITY, policy.maxBodyBytes());
+        var bytes = String.valueOf(requestContext.getEntity()).getBytes(charset(mediaType));
+        body.write(bytes, 0, bytes.length);
+        body.finish();
+    }
+
+    private OutputStream getEntityStream(ClientRequestContext requestContext, Logger log) {
+        try {
+            return requestContext.getEntityStream();
+        } catch (RuntimeException e) {
+            log.warn("can't read entity stream... will log toString", e);
+            return null;
         }
     }
 
     @Override
     public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
-        var log = getLog(requestContext);
-        if (!log.isDebugEnabled())
+        var start = System.nanoTime();
+        try {
+            logResponse(requestContext, responseContext);
+        } finally {
+            Metrics.INSTANCE.filtered(start);
+        }
+    }
+
+    private void logResponse(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+        var endpoint = getEndpoint(requestContext);
+        endpoint.recordLatency(requestContext.getProperty(Latencies.START_NANOS_PROPERTY), responseContext.getStatus());
+        var log = endpoint.log();
+        var policy = endpoint.policy();
+        if (!policy.isEnabled(log) || requestContext.getProperty(SKIPPED_PROPERTY) != null)
             return;
         var loggingOutputStream = (LoggingOutputStream) requestContext.getProperty(LOGGING_OUTPUT_STREAM_PROPERTY);
         if (loggingOutputStream != null)
             loggingOutputStream.close();
 
-        log.debug("got response for {} {}", requestContext.getMethod(), requestContext.getUri());
-        log.debug("<< Status: {} {}", responseContext.getStatus(), responseContext.getStatusInfo().getReasonPhrase());
-        var headers = responseContext.getHeaders();
-        if (headers != null)
-            headers.forEach((name, values) -> log.debug("<< {}: {}", name, merge(values)));
-        if (log.isDebugEnabled() && responseContext.hasEntity() && isLoggable(responseContext.getMediaType())) {
-            var charset = Charset.forName(responseContext.getMediaType().getParameters().getOrDefault(CHARSET_PARAMETER, ISO_8859_1.name()));
-            var entity = new String(responseContext.getEntityStream().readAllBytes(), charset);
-            entity.lines().forEach(line -> log.debug("<< {}", line));
-            responseContext.setEntityStream(new ByteArrayInputStream(entity.getBytes(charset)));
+        var exchange = (Exchange) requestContext.getProperty(Exchange.PROPERTY);
+        if (exchange == null)
+            exchange = new Exchange();
+        var elapsed = exchange.elapsed();
+        if (!exchange.complete(responseContext.getStatus(), elapsed))
+            return;
+
+        var head = new Head(exchange.id(), log, policy.level(), CLIENT_RESPONSE, requestContext.getMethod(), requestContext.getUri(),
+                responseContext.getStatusInfo(), headers(policy, responseContext.getHeaders()), elapsed);
+        var encoding = ContentEncoding.of(responseContext.getHeaderString(CONTENT_ENCODING));
+        var withBody = policy.bodies() && responseContext.hasEntity() && policy.isLoggable(responseContext.getMediaType(), encoding);
+        exchange.emitHead(head, withBody);
+        if (withBody) {
+            responseContext.setEntityStream(new LoggingInputStream(responseContext.getEntityStream(), BodyLogger.of(exchange, head, responseContext.getMediaType(), encoding, policy.maxBodyBytes())));
         }
     }
 
-    private Logger getLog(ClientRequestContext requestContext) {
+    private Endpoint getEndpoint(ClientRequestContext requestContext) {
         var properties = requestContext.getConfiguration().getProperties();
         var method = (Method) properties.get("org.eclipse.microprofile.rest.client.invokedMethod");
-        var loggerName = (method == null) ? LoggingClientFilter.class.getName()
-                : method.getDeclaringClass().getName() + "." + method.getName();
-        return LoggerFactory.getLogger(loggerName);
-    }
-
-    private boolean isLoggable(MediaType mediaType) {
-        return isApplication(mediaType, "json")
-               || isApplication(mediaType, "xml")
-               || mediaType.isCompatible(TEXT_PLAIN_TYPE);
-    }
-
-    private boolean isApplication(MediaType mediaType, String subType) {
-        return mediaType.getType().equals("application")
-               && (mediaType.getSubtype().equals(subType) || mediaType.getSubtype().endsWith("+" + subType));
+        return (method == null) ? FALLBACK : Endpoint.of(method);
     }
 }
@@ -0,0 +1,120 @@
+package com.github.t1.logging.clientfilter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The global settings, read once from system properties prefixed with <code>jax-rs-logging.</code>,
+ * e.g. <code>-Djax-rs-logging.max-body-bytes=1024</code>
+ */
+class LoggingConfig {
+    private static final String PREFIX = "jax-rs-logging.";
+
+    /**
+     * Bodies are passed through completely, but only this many bytes are kept for logging;
+     * the rest is only counted and logged as truncated.
+     */
+    static final int MAX_BODY_BYTES = Integer.getInteger(PREFIX + "max-body-bytes", 64 * 1024);
+
+    /** Compressed bodies are decompressed only up to this many bytes; see {@link ContentEncoding} */
+    static final int MAX_DECOMPRESSED_BYTES = Integer.getInteger(PREFIX + "max-decompressed-bytes", 4 * MAX_BODY_BYTES);
+
+    /** The number of shared slots in the {@link BufferPool}, in addition to one buffer per platform thread */
+    static final int BUFFER_POOL_SIZE = Integer.getInteger(PREFIX + "buffer-pool.size", 64);
+
+    /** The values of these headers are replaced by <code>&lt;hidden&gt;</code>; see {@link LoggingTools#safe(String, List)} */
+    static final List<String> REDACT_HEADERS = list(PREFIX + "redact.headers",
+            "Authorization,Proxy-Authorization,Cookie,Set-Cookie,X-API-Key,X-Auth-Token");
+
+    /** The values of these JSON fields or XML elements are replaced by <code>***</code>; see {@link BodyMasker} */
+    static final List<String> REDACT_FIELDS = list(PREFIX + "redact.fields",
+            "password,secret,token,access_token,refresh_token,id_token,client_secret,api_key");
+
+    /**
+     * Log only the bodies of these media types; see {@link MediaTypes}.
+     * Compiled right away, so an invalid pattern fails when the filters are created, not with the first request.
+     */
+    static final MediaTypes MEDIA_TYPES = mediaTypes(PREFIX + "media-types",
+            "application/json,application/*+json,application/xml,application/*+xml,text/plain,text/event-stream,multipart/*");
+
+    /** Of every text part of a multipart body, log only this many bytes; see {@link MultipartScanner} */
+    static final int MULTIPART_PREVIEW_BYTES = Integer.getInteger(PREFIX + "multipart.preview-bytes", 1024);
+
+    /** Log the bodies line by line while they are written; see {@link BodyLogger} */
+    static final boolean STREAMING = Boolean.getBoolean(PREFIX + "streaming");
+
+    /** In streaming mode, stop capturing after this many bytes per stream */
+    static final long STREAMING_MAX_BYTES = Long.getLong(PREFIX + "streaming.max-bytes", 1024 * 1024);
+
+    /** Log on a separate writer thread; see {@link AsyncEmitter} */
+    static final boolean ASYNC = Boolean.getBoolean(PREFIX + "async");
+
+    static final int ASYNC_QUEUE_SIZE = Integer.getInteger(PREFIX + "async.queue-size", 4096);
+
+    static final AsyncEmitter.Overflow ASYNC_OVERFLOW = AsyncEmitter.Overflow.valueOf(
+            System.getProperty(PREFIX + "async.overflow", "drop").toUpperCase(Locale.ROOT));
+
+    /**
+     * Write the exchanges to rolling, memory-mapped capture files in this directory, and log only a summary line;
+     * see {@link CaptureFile}
+     */
+    static final String CAPTURE_DIR = System.getProperty(PREFIX + "capture-file.dir");
+
+    static final int CAPTURE_FILE_SIZE = Integer.getInteger(PREFIX + "capture-file.size", 64 * 1024 * 1024);
+
+    /** The number of capture files to keep */
+    static final int CAPTURE_FILE_COUNT = Integer.getInteger(PREFIX + "capture-file.count", 4);
+
+    /** Log one structured event per request and per response; see {@link Message.Event} */
+    static final boolean STRUCTURED = Boolean.getBoolean(PREFIX + "structured");
+
+    /** Hold the messages back and log them only for failed or slow exchanges; see {@link Exchange} */
+    static final boolean TAIL = Boolean.getBoolean(PREFIX + "tail");
+
+    static final int TAIL_MIN_STATUS = Integer.getInteger(PREFIX + "tail.min-status", 500);
+
+    static final Duration TAIL_SLOW = Duration.ofMillis(Long.getLong(PREFIX + "tail.slow-millis", 1000));
+
+    /** Record the latencies of all exchanges, independent of the log level; see {@link LatencyHistogram} */
+    static final boolean HISTOGRAMS = Boolean.getBoolean(PREFIX + "histograms");
+
+    /** Log a summary of the latency histograms every n seconds; 0 to disable */
+    static final long HISTOGRAMS_SUMMARY_SECONDS = Long.getLong(PREFIX + "histograms.summary-seconds", 0);
+
+    /**
+     * Log only one in n exchanges (probabilistically); can be overridden per endpoint (i.e. logger name),
+     * e.g. <code>-Djax-rs-logging.sample-one-in.com.example.Api.get=100</code>
+     */
+    static int sampleOneIn(String endpoint) {
+        return Integer.getInteger(PREFIX + "sample-one-in." + endpoint, Integer.getInteger(PREFIX + "sample-one-in", 1));
+    }
+
+    /** Log at most this many exchanges per second and endpoint; 0 is unlimited. Can be overridden per endpoint. */
+    static int rateLimit(String endpoint) {
+        return Integer.getInteger(PREFIX + "rate-limit." + endpoint, Integer.getInteger(PREFIX + "rate-limit", 0));
+    }
+
+    /** How many exchanges may be logged at once, when the rate is limited; defaults to the rate limit itself. */
+    static int rateLimitBurst(String endpoint) {
+        return Integer.getInteger(PREFIX + "rate-limit.burst." + endpoint, Integer.getInteger(PREFIX + "rate-limit.burst", rateLimit(endpoint)));
+    }
+
+    /** A comma separated list of media type patterns */
+    static MediaTypes mediaTypes(String name, String defaultValue) {
+        try {
+            return MediaTypes.of(list(name, defaultValue).toArray(String[]::new));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " in " + name, e);
+        }
+    }
+
+    /** A comma separated list; empty to disable */
+    private static List<String> list(String name, String defaultValue) {
+        return Arrays.stream(System.getProperty(name, defaultValue).split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+}
@@ -1,88 +1,134 @@
 package com.github.t1.logging.clientfilter;
 
+import com.github.t1.logging.clientfilter.Message.Head;
 import jakarta.annotation.Priority;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.container.ContainerResponseFilter;
-import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.ext.Provider;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.lang.reflect.Method;
-import java.nio.charset.Charset;
 
-import static com.github.t1.logging.clientfilter.LoggingTools.merge;
-import static com.github.t1.logging.clientfilter.LoggingTools.safe;
+import static com.github.t1.logging.clientfilter.Kind.SERVER_REQUEST;
+import static com.github.t1.logging.clientfilter.Kind.SERVER_RESPONSE;
+import static com.github.t1.logging.clientfilter.LoggingTools.SKIPPED_PROPERTY;
+import static com.github.t1.logging.clientfilter.LoggingTools.headers;
 import static jakarta.ws.rs.Priorities.USER;
-import static jakarta.ws.rs.core.MediaType.CHARSET_PARAMETER;
-import static jakarta.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static jakarta.ws.rs.core.HttpHeaders.CONTENT_ENCODING;
 
 @Provider
 @Priority(USER + 900)
 public class LoggingContainerFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String LOGGING_INPUT_STREAM_PROPERTY = LoggingInputStream.class.getName();
+    private static final Endpoint FALLBACK = Endpoint.fallback(LoggingContainerFilter.class);
+
+    /** The <code>getMethod</code> accessor of the RESTEasy <code>ResourceMethodInvoker</code>, looked up only once */
+    private static final ClassValue<Method> GET_METHOD = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getMethod");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
     @Override
-    public void filter(ContainerRequestContext requestContext) throws IOException {
-        var log = getLog(requestContext);
-        if (!log.isDebugEnabled())
+    public void filter(ContainerRequestContext requestContext) {
+        var start = System.nanoTime();
+        try {
+            logRequest(requestContext);
+        } finally {
+            Metrics.INSTANCE.filtered(start);
+        }
+    }
+
+    private void logRequest(ContainerRequestContext requestContext) {
+        Metrics.INSTANCE.seen();
+        var endpoint = getEndpoint(requestContext);
+        if (endpoint.recordsLatency())
+            requestContext.setProperty(Latencies.START_NANOS_PROPERTY, System.nanoTime());
+        var log = endpoint.log();
+        var policy = endpoint.policy();
+        if (!policy.isEnabled(log))
             return;
-        log.debug("got {} request {}", requestContext.getMethod(), requestContext.getUriInfo().getRequestUri());
-        requestContext.getHeaders().forEach((name, values) -> log.debug(">>> {}: {}", name, safe(name, values)));
-        if (log.isDebugEnabled() && requestContext.hasEntity() && isLoggable(requestContext.getMediaType())) {
-            var charset = Charset.forName(requestContext.getMediaType().getParameters().getOrDefault(CHARSET_PARAMETER, ISO_8859_1.name()));
-            var entity = new String(requestContext.getEntityStream().readAllBytes(), charset);
-            entity.lines().forEach(line -> log.debug(">>> {}", line));
-            requestContext.setEntityStream(new ByteArrayInputStream(entity.getBytes(charset)));
+        if (!policy.sample()) {
+            requestContext.setProperty(SKIPPED_PROPERTY, true);
+            return;
+        }
+        Metrics.INSTANCE.logged();
+        var exchange = new Exchange();
+        requestContext.setProperty(Exchange.PROPERTY, exchange);
+        var head = new Head(exchange.id(), log, policy.level(), SERVER_REQUEST, requestContext.getMethod(), requestContext.getUriInfo().getRequestUri(),
+                null, headers(policy, requestContext.getHeaders()), null);
+        var encoding = ContentEncoding.of(requestContext.getHeaderString(CONTENT_ENCODING));
+        var withBody = policy.bodies() && requestContext.hasEntity() && policy.isLoggable(requestContext.getMediaType(), encoding);
+        exchange.emitHead(head, withBody);
+        if (withBody) {
+            var stream = new LoggingInputStream(requestContext.getEntityStream(), BodyLogger.of(exchange, head, requestContext.getMediaType(), encoding, policy.maxBodyBytes()));
+            requestContext.setProperty(LOGGING_INPUT_STREAM_PROPERTY, stream);
+            requestContext.setEntityStream(stream);
         }
     }
 
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
-        var log = getLog(requestContext);
-        if (!log.isDebugEnabled())
+        var start = System.nanoTime();
+        try {
+            logResponse(requestContext, responseContext);
+        } finally {
+            Metrics.INSTANCE.filtered(start);
+        }
+    }
+
+    private void logResponse(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        var endpoint = getEndpoint(requestContext);
+        endpoint.recordLatency(requestContext.getProperty(Latencies.START_NANOS_PROPERTY), responseContext.getStatus());
+        var log = endpoint.log();
+        var policy = endpoint.policy();
+        if (!policy.isEnabled(log) || requestContext.getProperty(SKIPPED_PROPERTY) != null)
+            return;
+        var loggingInputStream = (LoggingInputStream) requestContext.getProperty(LOGGING_INPUT_STREAM_PROPERTY);
+        if (loggingInputStream != null)
+            loggingInputStream.finish();
+        var exchange = (Exchange) requestContext.getProperty(Exchange.PROPERTY);
+        if (exchange == null) // the request filter is not called when no resource method matches
+            exchange = new Exchange();
+        var elapsed = exchange.elapsed();
+        if (!exchange.complete(responseContext.getStatus(), elapsed))
             return;
 
-        log.debug("sending response for {} {}", requestContext.getMethod(), requestContext.getUriInfo().getRequestUri());
-        log.debug("<<< Status: {} {}", responseContext.getStatus(), responseContext.getStatusInfo().getReasonPhrase());
-        responseContext.getStringHeaders().forEach((name, values) -> log.debug("<<< {}: {}", name, merge(values)));
-        if (log.isDebugEnabled() && responseContext.hasEntity() && isLoggable(responseContext.getMediaType())) {
-            responseContext.setEntityStream(new LoggingOutputStream(responseContext.getEntityStream(), "<<<", log));
+        var head = new Head(exchange.id(), log, policy.level(), SERVER_RESPONSE, requestContext.getMethod(), requestContext.getUriInfo().getRequestUri(),
+                responseContext.getStatusInfo(), headers(policy, responseContext.getStringHeaders()), elapsed);
+        var encoding = ContentEncoding.of(responseContext.getHeaderString(CONTENT_ENCODING));
+        var withBody = policy.bodies() && responseContext.hasEntity() && policy.isLoggable(responseContext.getMediaType(), encoding);
+        exchange.emitHead(head, withBody);
+        if (withBody) {
+            responseContext.setEntityStream(new LoggingOutputStream(responseContext.getEntityStream(), BodyLogger.of(exchange, head, responseContext.getMediaType(), encoding, policy.maxBodyBytes())));
         }
     }
 
-    private Logger getLog(ContainerRequestContext requestContext) {
-        var loggerName = LoggingContainerFilter.class.getName();
+    private Endpoint getEndpoint(ContainerRequestContext requestContext) {
         var resourceMethodInvoker = requestContext.getProperty("org.jboss.resteasy.core.ResourceMethodInvoker");
         if (resourceMethodInvoker != null) {
             var method = getMethod(resourceMethodInvoker);
             if (method != null) {
-                loggerName = method.getDeclaringClass().getName() + "." + method.getName();
+                return Endpoint.of(method);
             }
         }
-        return LoggerFactory.getLogger(loggerName);
+        return FALLBACK;
     }
 
     private Method getMethod(Object resourceMethodInvoker) {
+        var getter = GET_METHOD.get(resourceMethodInvoker.getClass());
+        if (getter == null)
+            return null;
         try {
-            var method = resourceMethodInvoker.getClass().getMethod("getMethod");
-            return (Method) method.invoke(resourceMethodInvoker);
+            return (Method) getter.invoke(resourceMethodInvoker);
         } catch (ReflectiveOperationException e) {
             return null;
         }
     }
-
-    private boolean isLoggable(MediaType mediaType) {
-        return isApplication(mediaType, "json")
-                || isApplication(mediaType, "xml")
-                || mediaType.isCompatible(TEXT_PLAIN_TYPE);
-    }
-
-    private boolean isApplication(MediaType mediaType, String subType) {
-        return mediaType.getType().equals("application")
-                && (mediaType.getSubtype().equals(subType) || mediaType.getSubtype().endsWith("+" + subType));
-    }
 }
@@ -0,0 +1,29 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.spi.AfterDeploymentValidation;
+import jakarta.enterprise.inject.spi.BeforeShutdown;
+import jakarta.enterprise.inject.spi.Extension;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registers the {@link Metrics} in MicroProfile Metrics (if available) when the application has started,
+ * and cleans up when the application stops, so nothing keeps its class loader alive after it has been undeployed:
+ * the metrics and the {@link MBeans} are unregistered and the {@link Latencies latency summary} thread is stopped.
+ * It's registered as a CDI portable extension; without CDI, the MBeans are only replaced by the next deployment.
+ */
+@Slf4j
+public class LoggingExtension implements Extension {
+    void afterDeploymentValidation(@Observes AfterDeploymentValidation event) {
+        if (Metrics.isMicroProfileMetricsAvailable())
+            MicroProfileMetrics.register(Metrics.INSTANCE);
+    }
+
+    void beforeShutdown(@Observes BeforeShutdown event) {
+        log.debug("application stops: unregister metrics and mbeans");
+        Latencies.stop();
+        if (Metrics.isMicroProfileMetricsAvailable())
+            MicroProfileMetrics.unregister();
+        MBeans.unregisterAll();
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.t1.logging.clientfilter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The counterpart of the {@link LoggingOutputStream}: passes the bytes through while the application reads them,
+ * and logs the captured body when the end of the stream is reached or when it is closed,
+ * whatever comes first.
+ */
+class LoggingInputStream extends FilterInputStream {
+    private final BodyLogger body;
+
+    public LoggingInputStream(InputStream stream, BodyLogger body) {
+        super(stream);
+        this.body = body;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var b = in.read();
+        if (b < 0)
+            finish();
+        else
+            body.write(b);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        var count = in.read(b, off, len);
+        if (count < 0)
+            finish();
+        else
+            body.write(b, off, count);
+        return count;
+    }
+
+    /** We'd capture the bytes twice after a reset */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            finish();
+        }
+    }
+
+    /** Log what has been read so far, if that has not already happened. */
+    void finish() {
+        body.finish();
+    }
+}
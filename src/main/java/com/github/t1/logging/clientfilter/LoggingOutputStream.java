@@ -1,31 +1,36 @@
 package com.github.t1.logging.clientfilter;
 
-import org.slf4j.Logger;
-
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
 class LoggingOutputStream extends FilterOutputStream {
-    private final String direction;
-    private final StringBuilder buffer = new StringBuilder();
-    private final Logger log;
+    private final BodyLogger body;
+    private boolean closed;
 
-    public LoggingOutputStream(OutputStream stream, String direction, Logger log) {
+    public LoggingOutputStream(OutputStream stream, BodyLogger body) {
         super(stream);
-        this.direction = direction;
-        this.log = log;
+        this.body = body;
     }
 
     @Override
     public void write(int b) throws IOException {
-        super.write(b);
-        buffer.appendCodePoint(b);
+        out.write(b);
+        body.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        body.write(b, off, len);
     }
 
     @Override
     public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
         super.close();
-        buffer.toString().lines().forEach(line -> log.debug("{} {}", direction, line));
+        body.finish();
     }
 }
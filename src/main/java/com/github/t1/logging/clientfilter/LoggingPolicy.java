@@ -0,0 +1,65 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import static org.slf4j.event.Level.DEBUG;
+
+/**
+ * What and how to log for one {@link Endpoint}. It's immutable, so the filters have to read the current policy
+ * only once per request (a single volatile read), while it can be replaced at runtime via JMX; see {@link EndpointMXBean}.
+ *
+ * @param enabled       <code>false</code> to not log anything, independent of the log level
+ * @param level         the level to log at, i.e. the exchanges are logged when the logger is enabled for this level
+ * @param headers       log the headers
+ * @param bodies        log the bodies
+ * @param maxBodyBytes  see {@link LoggingConfig#MAX_BODY_BYTES}
+ * @param mediaTypes    the media types of the bodies to log
+ * @param sampler       built from the sampling parameters; reused as long as they don't change, so it keeps its state
+ */
+record LoggingPolicy(boolean enabled, Level level, boolean headers, boolean bodies, int maxBodyBytes, MediaTypes mediaTypes,
+                     int sampleOneIn, int rateLimit, int rateLimitBurst, Sampler sampler) {
+    /** The policy as configured by the system properties */
+    static LoggingPolicy of(String endpoint) {
+        return of(endpoint, null);
+    }
+
+    /** The policy as configured by the system properties, overridden by the annotation, if not <code>null</code> */
+    static LoggingPolicy of(String endpoint, LogTraffic annotation) {
+        var sampleOneIn = LoggingConfig.sampleOneIn(endpoint);
+        var rateLimit = LoggingConfig.rateLimit(endpoint);
+        var rateLimitBurst = LoggingConfig.rateLimitBurst(endpoint);
+        if (annotation == null)
+            return new LoggingPolicy(true, DEBUG, true, true, LoggingConfig.MAX_BODY_BYTES, LoggingConfig.MEDIA_TYPES,
+                    sampleOneIn, rateLimit, rateLimitBurst);
+        return new LoggingPolicy(annotation.enabled(), DEBUG, annotation.headers(), annotation.body(),
+                (annotation.maxBytes() < 0) ? LoggingConfig.MAX_BODY_BYTES : annotation.maxBytes(),
+                (annotation.mediaTypes().length == 0) ? LoggingConfig.MEDIA_TYPES : MediaTypes.of(annotation.mediaTypes()),
+                sampleOneIn, rateLimit, rateLimitBurst);
+    }
+
+    LoggingPolicy(boolean enabled, Level level, boolean headers, boolean bodies, int maxBodyBytes, MediaTypes mediaTypes,
+                  int sampleOneIn, int rateLimit, int rateLimitBurst) {
+        this(enabled, level, headers, bodies, maxBodyBytes, mediaTypes, sampleOneIn, rateLimit, rateLimitBurst,
+                new Sampler(sampleOneIn, rateLimit, rateLimitBurst));
+    }
+
+    boolean isEnabled(Logger log) {
+        return enabled && ((level == DEBUG) ? log.isDebugEnabled() : log.isEnabledForLevel(level));
+    }
+
+    /** Should the current exchange be logged? Call only when {@link #isEnabled(Logger) enabled}, as the rate limit counts. */
+    boolean sample() {
+        return sampler.sample();
+    }
+
+    /** Should we log a body of this type? We can decode compressed bodies, but only scan multipart bodies that are not compressed. */
+    boolean isLoggable(MediaType mediaType, ContentEncoding encoding) {
+        if (encoding == null || !mediaTypes.matches(mediaType))
+            return false;
+        if (mediaType.getType().equals("multipart"))
+            return MultipartScanner.boundary(mediaType) != null && encoding == ContentEncoding.IDENTITY;
+        return true;
+    }
+}
@@ -1,12 +1,22 @@
 package com.github.t1.logging.clientfilter;
 
-import java.util.ArrayList;
+import jakarta.ws.rs.core.MediaType;
+
+import java.nio.charset.Charset;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static jakarta.ws.rs.core.HttpHeaders.AUTHORIZATION;
+import static jakarta.ws.rs.core.MediaType.CHARSET_PARAMETER;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 class LoggingTools {
+    /** Set by the request filter, when the exchange is not sampled, so the response filter skips it as well */
+    static final String SKIPPED_PROPERTY = LoggingTools.class.getPackageName() + ".skipped";
+
     /**
      * We consider passwords longer than this to be safe enough, so we can log the username,
      * which basically makes debugging easier, as it often happens that you use the <i>wrong credentials</i>,
@@ -14,27 +24,98 @@ class LoggingTools {
      */
     private static final int SAFE_PASSWORD_LEN = 12;
 
+    private static final String BASIC = "Basic ";
+    private static final String HIDDEN = "<hidden>";
+
+    private static final NameSet REDACTED_HEADERS = new NameSet(LoggingConfig.REDACT_HEADERS);
+
+    /** The header values, merged, or <code>&lt;hidden&gt;</code>, if it's one of the {@link LoggingConfig#REDACT_HEADERS} */
     static String safe(String name, List<String> values) {
-        if (AUTHORIZATION.equalsIgnoreCase(name)) {
-            List<String> safeValues = new ArrayList<>(values.size());
-            for (var value : values) {
-                var safeValue = "<hidden>";
-                var split = value.split(" ", 2);
-                if (split.length > 1 && "Basic".equalsIgnoreCase(split[0])) {
-                    var decoded = new String(Base64.getDecoder().decode(split[1])).split(":", 2);
-                    if (decoded.length > 1 && decoded[1].length() >= SAFE_PASSWORD_LEN) {
-                        var username = decoded[0];
-                        safeValue = username + ":" + safeValue;
-                    }
-                }
-                safeValues.add(safeValue);
-            }
-            values = safeValues;
+        if (!REDACTED_HEADERS.contains(name))
+            return merge(values);
+        Metrics.INSTANCE.redacted();
+        var authorization = AUTHORIZATION.equalsIgnoreCase(name);
+        var safeValues = new StringBuilder();
+        for (var value : values) {
+            if (!safeValues.isEmpty())
+                safeValues.append(", ");
+            safeValues.append(authorization ? safeAuthorization(value) : HIDDEN);
+        }
+        return safeValues.toString();
+    }
+
+    private static String safeAuthorization(String value) {
+        if (!value.regionMatches(true, 0, BASIC, 0, BASIC.length()))
+            return HIDDEN;
+        byte[] decoded;
+        try {
+            decoded = Base64.getDecoder().decode(value.substring(BASIC.length()).trim());
+        } catch (IllegalArgumentException e) {
+            return HIDDEN;
         }
-        return merge(values);
+        var colon = indexOf(decoded, (byte) ':');
+        if (colon < 0 || passwordLength(decoded, colon + 1) < SAFE_PASSWORD_LEN)
+            return HIDDEN;
+        return new String(decoded, 0, colon, UTF_8) + ":" + HIDDEN;
+    }
+
+    private static int indexOf(byte[] bytes, byte b) {
+        for (int i = 0; i < bytes.length; i++)
+            if (bytes[i] == b)
+                return i;
+        return -1;
+    }
+
+    /** The number of UTF-8 characters, i.e. the bytes that are not continuation bytes */
+    private static int passwordLength(byte[] bytes, int start) {
+        var length = 0;
+        for (int i = start; i < bytes.length; i++)
+            if ((bytes[i] & 0xC0) != 0x80)
+                length++;
+        return length;
+    }
+
+    static Map<String, String> safe(Map<String, List<String>> headers) {
+        var result = new LinkedHashMap<String, String>();
+        if (headers != null)
+            headers.forEach((name, values) -> {
+                var value = safe(name, values);
+                result.put(name, value);
+                Metrics.INSTANCE.headers(name.length() + value.length());
+            });
+        return result;
+    }
+
+    /** The {@link #safe(Map) safe} headers, if the policy says to log them */
+    static Map<String, String> headers(LoggingPolicy policy, Map<String, List<String>> headers) {
+        return policy.headers() ? safe(headers) : Map.of();
     }
 
     static String merge(List<String> values) {
         return String.join(", ", values);
     }
+
+    /**
+     * The <code>charset</code> parameter of the media type, or the default:
+     * JSON is always UTF-8 (RFC 8259), everything else defaults to ISO-8859-1 (RFC 2616).
+     */
+    static Charset charset(MediaType mediaType) {
+        return charset(mediaType.getParameters().get(CHARSET_PARAMETER), isJson(mediaType) ? UTF_8 : ISO_8859_1);
+    }
+
+    /** The client controls the name, so an illegal or unsupported name must not fail the request */
+    static Charset charset(String name, Charset defaultCharset) {
+        if (name == null)
+            return defaultCharset;
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return defaultCharset;
+        }
+    }
+
+    private static boolean isJson(MediaType mediaType) {
+        return "application".equals(mediaType.getType())
+               && ("json".equals(mediaType.getSubtype()) || mediaType.getSubtype().endsWith("+json"));
+    }
 }
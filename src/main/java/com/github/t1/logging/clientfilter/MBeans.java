@@ -0,0 +1,56 @@
+package com.github.t1.logging.clientfilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers our MBeans in the platform MBean server, under the domain <code>com.github.t1.logging</code>,
+ * and unregisters them when the application stops, so they don't keep its class loader alive.
+ */
+@Slf4j
+final class MBeans {
+    private static final Set<ObjectName> REGISTERED = ConcurrentHashMap.newKeySet();
+
+    private MBeans() {}
+
+    /**
+     * The key properties for an {@link Endpoint}, e.g. <code>endpoint="com.example.Api.get",params="String,int"</code>
+     *
+     * @param params the simple names of the parameter types, to tell overloaded methods apart; <code>null</code> for none
+     */
+    static String endpoint(String name, String params) {
+        return "endpoint=" + ObjectName.quote(name) + ((params == null) ? "" : ",params=" + ObjectName.quote(params));
+    }
+
+    /** @param properties the key properties of the object name, e.g. <code>type=BufferPool</code> */
+    static void register(String properties, Object mbean) {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName("com.github.t1.logging:" + properties);
+            if (server.isRegistered(name)) // e.g. from a previous deployment that was not stopped properly
+                server.unregisterMBean(name);
+            server.registerMBean(mbean, name);
+            REGISTERED.add(name);
+        } catch (JMException | RuntimeException e) {
+            log.warn("can't register mbean {}", properties, e);
+        }
+    }
+
+    /** Called when the application stops */
+    static void unregisterAll() {
+        var server = ManagementFactory.getPlatformMBeanServer();
+        for (var name : REGISTERED) {
+            REGISTERED.remove(name);
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException | RuntimeException e) {
+                log.debug("can't unregister mbean {}", name, e);
+            }
+        }
+    }
+}
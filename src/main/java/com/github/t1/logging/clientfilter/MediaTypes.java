@@ -0,0 +1,70 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The media types of the bodies to log, compiled once from patterns like <code>application/json</code>,
+ * <code>application/*+json</code>, or <code>text/*</code>, so matching them needs no string building.
+ */
+final class MediaTypes {
+    static MediaTypes of(String... patterns) {
+        return new MediaTypes(Arrays.stream(patterns).map(Pattern::of).toArray(Pattern[]::new));
+    }
+
+    /**
+     * @param type    <code>null</code> for any type
+     * @param subtype <code>null</code> for any subtype, or, if the <code>suffix</code> is set, any subtype with that suffix
+     * @param suffix  e.g. <code>+json</code>
+     */
+    private record Pattern(String type, String subtype, String suffix) {
+        static Pattern of(String pattern) {
+            var string = pattern.trim().toLowerCase(Locale.ROOT);
+            var slash = string.indexOf('/');
+            if (slash <= 0 || slash == string.length() - 1)
+                throw new IllegalArgumentException("invalid media type pattern: " + pattern);
+            var type = string.substring(0, slash);
+            var subtype = string.substring(slash + 1);
+            return new Pattern(type.equals("*") ? null : type,
+                    subtype.startsWith("*") ? null : subtype,
+                    subtype.startsWith("*+") ? subtype.substring(1) : null);
+        }
+
+        boolean matches(MediaType mediaType) {
+            if (type != null && !type.equalsIgnoreCase(mediaType.getType()))
+                return false;
+            var actual = mediaType.getSubtype();
+            if (subtype != null)
+                return subtype.equalsIgnoreCase(actual);
+            return suffix == null || actual.length() > suffix.length()
+                                     && actual.regionMatches(true, actual.length() - suffix.length(), suffix, 0, suffix.length());
+        }
+
+        @Override
+        public String toString() {
+            return ((type == null) ? "*" : type) + "/" + ((subtype != null) ? subtype : (suffix == null) ? "*" : "*" + suffix);
+        }
+    }
+
+    private final Pattern[] patterns;
+
+    private MediaTypes(Pattern[] patterns) {
+        this.patterns = patterns;
+    }
+
+    boolean matches(MediaType mediaType) {
+        if (mediaType == null)
+            return false;
+        for (var pattern : patterns)
+            if (pattern.matches(mediaType))
+                return true;
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(patterns);
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.Response.StatusType;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.slf4j.event.Level.DEBUG;
+
+/**
+ * An immutable snapshot of something to log about an exchange. It's created on the request thread,
+ * but it may be formatted and logged on any other thread; see {@link Emitter}.
+ */
+sealed interface Message {
+    void emit();
+
+    /** Called instead of {@link #emit()}, when the message is not going to be logged, so it can release resources */
+    default void discard() {}
+
+    /** Like {@link Logger#debug(String, Object...)}, but at the given level */
+    static void logAt(Level level, Logger log, String format, Object... arguments) {
+        if (level == DEBUG)
+            log.debug(format, arguments);
+        else
+            log.atLevel(level).log(format, arguments);
+    }
+
+    /**
+     * The request or status line and the headers.
+     * The exchange is the {@link Exchange#id() id} of the exchange, so the request and the response can be correlated.
+     * The duration is the time since the request filter was called; it's only known for responses.
+     */
+    record Head(long exchange, Logger log, Level level, Kind kind, String method, URI uri, StatusType status, Map<String, String> headers,
+                Duration duration) implements Message {
+        @Override
+        public void emit() {
+            logAt(level, log, kind.title, method, uri);
+            if (status != null)
+                logAt(level, log, "{} Status: {} {}", kind.prefix, status.getStatusCode(), status.getReasonPhrase());
+            headers.forEach((name, value) -> logAt(level, log, "{} {}: {}", kind.prefix, name, value));
+        }
+    }
+
+    /**
+     * The captured body; the capture must not be written to anymore.
+     * Compressed bodies are decompressed (and masked) only when they are emitted; see {@link #decoded()}.
+     *
+     * @param format to mask the body when it's decoded; <code>null</code> if it's not encoded or nothing is to be masked
+     */
+    record Body(Head head, BodyCapture capture, Charset charset, ContentEncoding encoding, BodyMasker.Format format)
+            implements Message {
+        Body(Head head, BodyCapture capture, Charset charset) {
+            this(head, capture, charset, ContentEncoding.IDENTITY, null);
+        }
+
+        @Override
+        public void emit() {
+            var decoded = decoded();
+            var capture = decoded.capture;
+            capture.forEachLine(charset, line -> logAt(head.level, head.log, "{} {}", head.kind.prefix, line));
+            if (capture.truncated() > 0)
+                logAt(head.level, head.log, "{} …truncated {} bytes", head.kind.prefix, capture.truncated());
+            decoded.discard();
+            discard();
+        }
+
+        /** The decompressed body, or this, if it's not encoded. {@link #discard() Discard} it after use. */
+        Body decoded() {
+            if (encoding == ContentEncoding.IDENTITY)
+                return this;
+            return new Body(head, encoding.decode(capture, format), charset);
+        }
+
+        @Override
+        public void discard() {
+            capture.release();
+        }
+    }
+
+    /**
+     * A single, structured log event for the request or the response, including the body (if captured),
+     * using the key-value pairs of the SLF4J 2 fluent API.
+     * <p>
+     * In streaming mode, the body arrives in chunks: only the first event has the complete head, the others are
+     * <code>continued</code> and have only the kind, the exchange id to correlate them, and the body.
+     */
+    record Event(Head head, Body body, boolean continued) implements Message {
+        Event(Head head, Body body) {
+            this(head, body, false);
+        }
+
+        @Override
+        public void emit() {
+            var event = head.log.atLevel(head.level)
+                    .addKeyValue("kind", head.kind)
+                    .addKeyValue("exchange", head.exchange);
+            if (!continued) {
+                event = event
+                        .addKeyValue("method", head.method)
+                        .addKeyValue("uri", head.uri);
+                if (head.status != null)
+                    event = event.addKeyValue("status", head.status.getStatusCode());
+                if (head.duration != null)
+                    event = event.addKeyValue("durationNanos", head.duration.toNanos());
+                event = event.addKeyValue("headers", head.headers);
+            }
+            if (body != null) {
+                var decoded = body.decoded();
+                var capture = decoded.capture;
+                event = event
+                        .addKeyValue("body", capture.toString(body.charset))
+                        .addKeyValue("bodyBytes", capture.size() + capture.truncated())
+                        .addKeyValue("bodyTruncatedBytes", capture.truncated());
+                decoded.discard();
+            }
+            if (continued)
+                event.log("{} continued", head.kind.prefix);
+            else
+                event.log(head.kind.title, head.method, head.uri);
+            discard();
+        }
+
+        @Override
+        public void discard() {
+            if (body != null)
+                body.discard();
+        }
+    }
+}
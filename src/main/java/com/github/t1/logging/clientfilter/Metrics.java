@@ -0,0 +1,117 @@
+package com.github.t1.logging.clientfilter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters behind the {@link MetricsMXBean}. They are striped {@link LongAdder}s,
+ * so the request threads don't contend when they count.
+ * <p>
+ * Registered as MBean <code>com.github.t1.logging:type=Metrics</code>, and, if MicroProfile Metrics is available,
+ * as gauges in its application registry when the application starts; see {@link LoggingExtension}.
+ */
+final class Metrics implements MetricsMXBean {
+    static final Metrics INSTANCE = new Metrics();
+
+    static {
+        MBeans.register("type=Metrics", INSTANCE);
+    }
+
+    static boolean isMicroProfileMetricsAvailable() {
+        try {
+            Class.forName("org.eclipse.microprofile.metrics.MetricRegistry", false, Metrics.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private final LongAdder exchangesSeen = new LongAdder();
+    private final LongAdder exchangesLogged = new LongAdder();
+    private final LongAdder headerCharsCaptured = new LongAdder();
+    private final LongAdder bodyBytesCaptured = new LongAdder();
+    private final LongAdder bodyBytesTruncated = new LongAdder();
+    private final LongAdder filterNanos = new LongAdder();
+    private final LongAdder redactions = new LongAdder();
+
+    void seen() {
+        exchangesSeen.increment();
+    }
+
+    void logged() {
+        exchangesLogged.increment();
+    }
+
+    void headers(long chars) {
+        headerCharsCaptured.add(chars);
+    }
+
+    void body(BodyCapture capture) {
+        bodyBytesCaptured.add(capture.size());
+        bodyBytesTruncated.add(capture.truncated());
+    }
+
+    /** @param start the {@link System#nanoTime()} when the filter was called */
+    void filtered(long start) {
+        filterNanos.add(System.nanoTime() - start);
+    }
+
+    void redacted() {
+        redactions.increment();
+    }
+
+    @Override
+    public long getExchangesSeen() {
+        return exchangesSeen.sum();
+    }
+
+    @Override
+    public long getExchangesLogged() {
+        return exchangesLogged.sum();
+    }
+
+    @Override
+    public long getHeaderCharsCaptured() {
+        return headerCharsCaptured.sum();
+    }
+
+    @Override
+    public long getBodyBytesCaptured() {
+        return bodyBytesCaptured.sum();
+    }
+
+    @Override
+    public long getBodyBytesTruncated() {
+        return bodyBytesTruncated.sum();
+    }
+
+    @Override
+    public long getFilterNanos() {
+        return filterNanos.sum();
+    }
+
+    @Override
+    public long getRedactions() {
+        return redactions.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return (Emitter.INSTANCE instanceof AsyncEmitter async) ? async.queueSize() : 0;
+    }
+
+    @Override
+    public long getDropped() {
+        return (Emitter.INSTANCE instanceof AsyncEmitter async) ? async.dropped() : 0;
+    }
+
+    @Override
+    public void reset() {
+        exchangesSeen.reset();
+        exchangesLogged.reset();
+        headerCharsCaptured.reset();
+        bodyBytesCaptured.reset();
+        bodyBytesTruncated.reset();
+        filterNanos.reset();
+        redactions.reset();
+    }
+}
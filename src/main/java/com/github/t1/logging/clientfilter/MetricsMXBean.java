@@ -0,0 +1,35 @@
+package com.github.t1.logging.clientfilter;
+
+/**
+ * What the logging itself costs, over all endpoints;
+ * registered as <code>com.github.t1.logging:type=Metrics</code>.
+ */
+public interface MetricsMXBean {
+    /** The request filters were called */
+    long getExchangesSeen();
+
+    /** The exchanges that passed the level, the sampling, and the rate limit */
+    long getExchangesLogged();
+
+    /** The length of the header names and values logged, in characters */
+    long getHeaderCharsCaptured();
+
+    long getBodyBytesCaptured();
+
+    /** The body bytes that were only counted, as they exceeded a limit */
+    long getBodyBytesTruncated();
+
+    /** The time spent inside the filter methods, excluding the body streams */
+    long getFilterNanos();
+
+    /** The header values, body fields, and multipart parts that were hidden or masked */
+    long getRedactions();
+
+    /** The messages waiting for the async writer thread; 0 if not async */
+    int getQueueDepth();
+
+    /** The messages the async writer dropped, as the queue was full */
+    long getDropped();
+
+    void reset();
+}
@@ -0,0 +1,66 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.enterprise.inject.spi.CDI;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Registers the {@link Metrics} as gauges in the MicroProfile Metrics application registry,
+ * e.g. <code>jax-rs-logging.exchanges.seen</code>, when the application starts, and removes them when it stops;
+ * see {@link LoggingExtension}.
+ * This class must only be loaded when MP Metrics is on the classpath, as it's an optional dependency;
+ * see {@link Metrics#isMicroProfileMetricsAvailable()}.
+ * <p>
+ * The metrics are optional, so any failure is only logged: it must never break the filters.
+ */
+@Slf4j
+final class MicroProfileMetrics {
+    private static final String PREFIX = "jax-rs-logging.";
+    private static final List<String> NAMES = List.of("exchanges.seen", "exchanges.logged", "header.chars.captured",
+            "body.bytes.captured", "body.bytes.truncated", "filter.nanos", "redactions", "queue.depth", "dropped");
+
+    /** where we registered the gauges; <code>null</code> if we didn't */
+    private static MetricRegistry registered;
+
+    private MicroProfileMetrics() {}
+
+    /** Register in the application registry from CDI */
+    static void register(MetricsMXBean metrics) {
+        register(() -> CDI.current().select(MetricRegistry.class).get(), metrics);
+    }
+
+    static synchronized void register(Supplier<MetricRegistry> registry, MetricsMXBean metrics) {
+        try {
+            registered = registry.get(); // before registering, so we also remove what we registered before a failure
+            gauges(registered, metrics);
+        } catch (RuntimeException | LinkageError e) { // e.g. a gauge of a previous deployment in a shared registry
+            log.warn("can't register the metrics in MicroProfile Metrics", e);
+        }
+    }
+
+    private static void gauges(MetricRegistry registry, MetricsMXBean metrics) {
+        registry.gauge(PREFIX + "exchanges.seen", metrics, MetricsMXBean::getExchangesSeen);
+        registry.gauge(PREFIX + "exchanges.logged", metrics, MetricsMXBean::getExchangesLogged);
+        registry.gauge(PREFIX + "header.chars.captured", metrics, MetricsMXBean::getHeaderCharsCaptured);
+        registry.gauge(PREFIX + "body.bytes.captured", metrics, MetricsMXBean::getBodyBytesCaptured);
+        registry.gauge(PREFIX + "body.bytes.truncated", metrics, MetricsMXBean::getBodyBytesTruncated);
+        registry.gauge(PREFIX + "filter.nanos", metrics, MetricsMXBean::getFilterNanos);
+        registry.gauge(PREFIX + "redactions", metrics, MetricsMXBean::getRedactions);
+        registry.gauge(PREFIX + "queue.depth", metrics, MetricsMXBean::getQueueDepth);
+        registry.gauge(PREFIX + "dropped", metrics, MetricsMXBean::getDropped);
+    }
+
+    static synchronized void unregister() {
+        if (registered == null)
+            return;
+        try {
+            NAMES.forEach(name -> registered.remove(PREFIX + name));
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("can't remove the metrics from MicroProfile Metrics", e);
+        }
+        registered = null;
+    }
+}
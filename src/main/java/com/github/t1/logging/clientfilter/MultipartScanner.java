@@ -0,0 +1,295 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.MediaType;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reduces a <code>multipart/*</code> body to what's useful in a log, while the bytes flow into the {@link BodyCapture}:
+ * the boundaries and the part headers are passed through, text parts only up to
+ * <code>jax-rs-logging.multipart.preview-bytes</code> (default 1024), binary parts are replaced by their size,
+ * and parts named like one of the {@link BodyMasker#FIELDS redacted fields} by <code>***</code>.
+ * The previews are converted from the <code>charset</code> of their part (default UTF-8) to UTF-8,
+ * and the fields of JSON and XML parts are masked.
+ * <p>
+ * The boundary is matched byte by byte, and the bytes of a partial match are not buffered, as they are a prefix
+ * of the delimiter; so the only things we keep in memory are the current header line and the preview of the
+ * current text part.
+ */
+final class MultipartScanner {
+    private static final int MAX_HEADER_LINE = 1024;
+    private static final Pattern NAME = parameter("name");
+    private static final Pattern FILENAME = parameter("filename");
+    private static final Pattern CHARSET = parameter("charset");
+
+    private static Pattern parameter(String name) {
+        return Pattern.compile("(?i)(?:^|;)\\s*" + name + "\\s*=\\s*(?:\"([^\"]*)\"|([^;\\s]*))");
+    }
+
+    /** @return <code>null</code> if the media type is not multipart or has no boundary */
+    static String boundary(MediaType mediaType) {
+        if (mediaType == null || !"multipart".equals(mediaType.getType()))
+            return null;
+        var boundary = mediaType.getParameters().get("boundary");
+        return (boundary == null || boundary.isEmpty()) ? null : boundary;
+    }
+
+    private enum State {CONTENT, AFTER_DELIMITER, HEADERS, EPILOGUE}
+
+    private enum Part {TEXT, BINARY, MASKED}
+
+    private final BodyMasker.Sink sink;
+    /** CRLF, two dashes, and the boundary */
+    private final byte[] delimiter;
+    private final int previewBytes;
+    private final byte[] single = new byte[1];
+    private final byte[] line = new byte[MAX_HEADER_LINE];
+    private int lineLength;
+    /** allocated with the first text part */
+    private byte[] preview;
+
+    private State state = State.CONTENT;
+    /** the number of bytes of the delimiter matched so far */
+    private int matched = 2;
+    /** the first delimiter may be at the very start, i.e. without the leading CRLF */
+    private int virtual = 2;
+    private int afterDelimiter;
+
+    private Part part = Part.TEXT; // the preamble
+    private String contentType;
+    private String name;
+    private boolean file;
+    private long partBytes;
+    private long previewed;
+
+    MultipartScanner(String boundary, BodyMasker.Sink sink) {
+        this(boundary, LoggingConfig.MULTIPART_PREVIEW_BYTES, sink);
+    }
+
+    MultipartScanner(String boundary, int previewBytes, BodyMasker.Sink sink) {
+        this.delimiter = ("\r\n--" + boundary).getBytes(ISO_8859_1);
+        this.previewBytes = previewBytes;
+        this.sink = sink;
+    }
+
+    void write(int b) {
+        next((byte) b);
+    }
+
+    void write(byte[] b, int off, int len) {
+        var end = off + len;
+        var i = off;
+        while (i < end) {
+            if (state == State.CONTENT && matched == 0) { // fast path: a delimiter can only start at a CR
+                var cr = i;
+                while (cr < end && b[cr] != '\r')
+                    cr++;
+                if (cr > i) {
+                    content(b, i, cr - i);
+                    i = cr;
+                    continue;
+                }
+            }
+            next(b[i++]);
+        }
+    }
+
+    /** The body is complete (or the stream was closed): summarize the current part */
+    void finish() {
+        if (state == State.CONTENT) {
+            flushMatched();
+            endPart();
+        }
+        state = State.EPILOGUE;
+    }
+
+    private void next(byte b) {
+        switch (state) {
+            case CONTENT -> {
+                if (b == delimiter[matched]) {
+                    if (++matched == delimiter.length) {
+                        endPart();
+                        sink.write(delimiter, virtual, delimiter.length - virtual);
+                        virtual = 0;
+                        matched = 0;
+                        afterDelimiter = 0;
+                        state = State.AFTER_DELIMITER;
+                    }
+                } else {
+                    flushMatched();
+                    if (b == '\r')
+                        matched = 1;
+                    else
+                        content(b);
+                }
+            }
+            case AFTER_DELIMITER -> {
+                afterDelimiter++;
+                if (b == '-' && afterDelimiter <= 2) {
+                    verbatim(b);
+                    if (afterDelimiter == 2) // the close delimiter
+                        state = State.EPILOGUE;
+                } else if (b == '\n') {
+                    verbatim(b);
+                    startPart();
+                } else {
+                    verbatim(b); // transport padding
+                }
+            }
+            case HEADERS -> {
+                verbatim(b);
+                if (b == '\n') {
+                    if (lineLength > 0 && line[lineLength - 1] == '\r')
+                        lineLength--;
+                    if (lineLength == 0)
+                        startContent();
+                    else
+                        header(new String(line, 0, lineLength, ISO_8859_1));
+                    lineLength = 0;
+                } else if (lineLength < line.length) {
+                    line[lineLength++] = b;
+                }
+            }
+            case EPILOGUE -> {
+                // ignored
+            }
+        }
+    }
+
+    /** The bytes of a partial match turned out to be content */
+    private void flushMatched() {
+        if (matched > virtual)
+            content(delimiter, virtual, matched - virtual);
+        matched = 0;
+        virtual = 0;
+    }
+
+    private void startPart() {
+        contentType = null;
+        name = null;
+        file = false;
+        lineLength = 0;
+        state = State.HEADERS;
+    }
+
+    private void header(String header) {
+        var colon = header.indexOf(':');
+        if (colon < 0)
+            return;
+        var headerName = header.substring(0, colon).trim();
+        var value = header.substring(colon + 1).trim();
+        if ("Content-Type".equalsIgnoreCase(headerName)) {
+            contentType = value.toLowerCase(Locale.ROOT);
+        } else if ("Content-Disposition".equalsIgnoreCase(headerName)) {
+            name = parameter(NAME, value);
+            file = parameter(FILENAME, value) != null;
+        }
+    }
+
+    private static String parameter(Pattern pattern, String value) {
+        var matcher = pattern.matcher(value);
+        if (!matcher.find())
+            return null;
+        return (matcher.group(1) != null) ? matcher.group(1) : matcher.group(2);
+    }
+
+    private void startContent() {
+        part = (name != null && BodyMasker.FIELDS.contains(name)) ? Part.MASKED
+                : isText() ? Part.TEXT : Part.BINARY;
+        partBytes = 0;
+        previewed = 0;
+        matched = 0;
+        state = State.CONTENT;
+    }
+
+    /** Form fields without a content type are text, files are binary (RFC 7578) */
+    private boolean isText() {
+        if (contentType == null)
+            return !file;
+        return contentType.startsWith("text/")
+               || contentType.contains("json")
+               || contentType.contains("xml")
+               || contentType.startsWith("application/x-www-form-urlencoded");
+    }
+
+    private void content(byte b) {
+        single[0] = b;
+        content(single, 0, 1);
+    }
+
+    private void content(byte[] b, int off, int len) {
+        partBytes += len;
+        if (part == Part.TEXT && previewed < previewBytes) {
+            if (preview == null)
+                preview = new byte[previewBytes];
+            var count = (int) Math.min(len, previewBytes - previewed);
+            System.arraycopy(b, off, preview, (int) previewed, count);
+            previewed += count;
+        }
+    }
+
+    private void endPart() {
+        switch (part) {
+            case TEXT -> {
+                if (previewed > 0)
+                    preview();
+                if (partBytes > previewed)
+                    text("<…" + (partBytes - previewed) + " more bytes>");
+            }
+            case BINARY -> text("<" + partBytes + " bytes>");
+            case MASKED -> {
+                text("***");
+                Metrics.INSTANCE.redacted();
+            }
+        }
+        partBytes = 0;
+        previewed = 0;
+    }
+
+    private void preview() {
+        var bytes = preview;
+        var length = (int) previewed;
+        var charset = charset();
+        if (!charset.equals(UTF_8) && !charset.equals(US_ASCII)) {
+            bytes = new String(preview, 0, length, charset).getBytes(UTF_8);
+            length = bytes.length;
+        }
+        var format = format();
+        if (format == null)
+            sink.write(bytes, 0, length);
+        else
+            format.masker(sink).write(bytes, 0, length);
+    }
+
+    /** The <code>charset</code> parameter of the part's content type; form fields are UTF-8 by default (RFC 7578) */
+    private Charset charset() {
+        return LoggingTools.charset((contentType == null) ? null : parameter(CHARSET, contentType), UTF_8);
+    }
+
+    private BodyMasker.Format format() {
+        if (contentType == null)
+            return null;
+        var end = contentType.indexOf(';');
+        var type = ((end < 0) ? contentType : contentType.substring(0, end)).trim();
+        var slash = type.indexOf('/');
+        if (slash < 0)
+            return null;
+        return BodyMasker.Format.of(new MediaType(type.substring(0, slash), type.substring(slash + 1)), UTF_8);
+    }
+
+    private void text(String text) {
+        var bytes = text.getBytes(UTF_8);
+        sink.write(bytes, 0, bytes.length);
+    }
+
+    private void verbatim(byte b) {
+        single[0] = b;
+        sink.write(single, 0, 1);
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.t1.logging.clientfilter;
+
+import java.util.Collection;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An immutable set of names that is looked up ASCII case-insensitively,
+ * either as a {@link String} (e.g. a header name) or as raw bytes (e.g. a field name in a body),
+ * without allocating anything or converting the case of the candidate.
+ */
+final class NameSet {
+    /** open addressing with linear probing; the names are stored in lower case */
+    private final byte[][] table;
+    private final int mask;
+    private final int maxLength;
+
+    NameSet(Collection<String> names) {
+        this.table = new byte[Integer.highestOneBit(Math.max(1, names.size()) * 4)][];
+        this.mask = table.length - 1;
+        var maxLength = 0;
+        for (var name : names) {
+            var bytes = name.getBytes(UTF_8);
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = lower(bytes[i]);
+            var index = hash(bytes, bytes.length) & mask;
+            while (table[index] != null)
+                index = (index + 1) & mask;
+            table[index] = bytes;
+            maxLength = Math.max(maxLength, bytes.length);
+        }
+        this.maxLength = maxLength;
+    }
+
+    boolean isEmpty() {
+        return maxLength == 0;
+    }
+
+    /** The length in bytes of the longest name; longer candidates can't be contained */
+    int maxLength() {
+        return maxLength;
+    }
+
+    boolean contains(String name) {
+        var length = name.length();
+        if (length == 0 || length > maxLength)
+            return false;
+        var hash = 0;
+        for (int i = 0; i < length; i++) {
+            var c = name.charAt(i);
+            if (c > 0x7F)
+                return false; // header names are ASCII tokens
+            hash = 31 * hash + lower((byte) c);
+        }
+        for (int index = hash & mask; table[index] != null; index = (index + 1) & mask)
+            if (equals(table[index], name))
+                return true;
+        return false;
+    }
+
+    boolean contains(byte[] name, int length) {
+        if (length == 0 || length > maxLength)
+            return false;
+        for (int index = hash(name, length) & mask; table[index] != null; index = (index + 1) & mask)
+            if (equals(table[index], name, length))
+                return true;
+        return false;
+    }
+
+    private static int hash(byte[] bytes, int length) {
+        var hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + lower(bytes[i]);
+        return hash;
+    }
+
+    private static boolean equals(byte[] entry, String name) {
+        if (entry.length != name.length())
+            return false;
+        for (int i = 0; i < entry.length; i++)
+            if (entry[i] != lower((byte) name.charAt(i)))
+                return false;
+        return true;
+    }
+
+    private static boolean equals(byte[] entry, byte[] name, int length) {
+        if (entry.length != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (entry[i] != lower(name[i]))
+                return false;
+        return true;
+    }
+
+    private static byte lower(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.t1.logging.clientfilter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Decides which exchanges of an endpoint get logged at all: on average one in <code>n</code>,
+ * and at most <code>rate</code> per second, with bursts of up to <code>burst</code> exchanges.
+ * <p>
+ * The rate limit is a lock-free token bucket, implemented as a
+ * <a href="https://en.wikipedia.org/wiki/Generic_cell_rate_algorithm">generic cell rate algorithm</a>:
+ * instead of counting tokens, we only keep the <em>theoretical arrival time</em> of the next exchange.
+ */
+final class Sampler {
+    private final int oneIn;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param oneIn 1 for all exchanges
+     * @param rate  the maximum number of exchanges per second; 0 for unlimited
+     * @param burst the maximum number of exchanges to allow at once; only relevant when limiting the rate
+     */
+    Sampler(int oneIn, int rate, int burst) {
+        this.oneIn = Math.max(oneIn, 1);
+        this.intervalNanos = (rate > 0) ? SECONDS.toNanos(1) / rate : 0;
+        this.toleranceNanos = intervalNanos * Math.max(burst, 1);
+    }
+
+    boolean sample() {
+        return (oneIn == 1 || ThreadLocalRandom.current().nextInt(oneIn) == 0)
+               && (intervalNanos == 0 || acquire(System.nanoTime()));
+    }
+
+    boolean acquire(long now) {
+        while (true) {
+            var tat = theoreticalArrival.get();
+            var next = ((tat - now < 0) ? now : tat) + intervalNanos;
+            if (next - now > toleranceNanos)
+                return false;
+            if (theoreticalArrival.compareAndSet(tat, next))
+                return true;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Body;
+import com.github.t1.logging.clientfilter.Message.Head;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static com.github.t1.logging.clientfilter.AsyncEmitter.Overflow.BLOCK;
+import static com.github.t1.logging.clientfilter.AsyncEmitter.Overflow.DROP;
+import static com.github.t1.logging.clientfilter.Kind.SERVER_REQUEST;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.slf4j.event.Level.DEBUG;
+
+class AsyncEmitterTest {
+    private final List<Long> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    /** The sink blocks on the first message until {@link #unblock} */
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    private static Head message(long id) {
+        return new Head(id, LoggerFactory.getLogger(AsyncEmitterTest.class), DEBUG, SERVER_REQUEST, "GET",
+                URI.create("http://localhost"), null, Map.of(), null);
+    }
+
+    private void blockingSink(Message message) {
+        var head = (message instanceof Body body) ? body.head() : (Head) message;
+        if (head.exchange() == 1) {
+            blocked.countDown();
+            try {
+                unblock.await(10, SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (head.exchange() == 13)
+            throw new IllegalStateException("sink failed");
+        sent.add(head.exchange());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 1000 && !condition.getAsBoolean(); i++)
+            Thread.sleep(10);
+        then(condition.getAsBoolean()).as("condition met within 10 seconds").isTrue();
+    }
+
+    @Test
+    void shouldSendAllMessagesInOrder() throws InterruptedException {
+        var emitter = new AsyncEmitter(1000, BLOCK, this::blockingSink);
+        unblock.countDown();
+
+        for (long i = 1; i <= 500; i++)
+            emitter.send(message(i));
+
+        await(() -> sent.size() == 499);
+        then(sent).isSorted().doesNotContain(13L); // i.e. the writer survived the failing message
+        then(emitter.dropped()).isZero();
+    }
+
+    @Test
+    void shouldDropAndDiscardWhenFull() throws InterruptedException {
+        var emitter = new AsyncEmitter(1, DROP, this::blockingSink);
+        emitter.send(message(1));
+        then(blocked.await(10, SECONDS)).isTrue();
+        emitter.send(message(2)); // queued
+        var capture = new BodyCapture(100);
+        capture.write("foo".getBytes(ISO_8859_1), 0, 3);
+
+        emitter.send(new Body(message(3), capture, ISO_8859_1));
+
+        then(emitter.dropped()).isEqualTo(1);
+        then(capture.size()).as("discarded").isZero();
+        then(emitter.queueSize()).isEqualTo(1);
+        unblock.countDown();
+        await(() -> sent.size() == 2);
+        then(sent).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldBlockWhenFull() throws InterruptedException {
+        var emitter = new AsyncEmitter(1, BLOCK, this::blockingSink);
+        emitter.send(message(1));
+        then(blocked.await(10, SECONDS)).isTrue();
+        emitter.send(message(2)); // queued
+        var producer = new Thread(() -> emitter.send(message(3)));
+
+        producer.start();
+        producer.join(200);
+
+        then(producer.isAlive()).as("blocked").isTrue();
+        unblock.countDown();
+        producer.join(10_000);
+        await(() -> sent.size() == 3);
+        then(sent).containsExactly(1L, 2L, 3L);
+        then(emitter.dropped()).isZero();
+    }
+
+    @Test
+    void shouldStopIdleWriterAndRestartIt() throws InterruptedException {
+        var emitter = new AsyncEmitter(10, DROP, this::blockingSink, Duration.ofMillis(10));
+        unblock.countDown();
+        then(emitter.isRunning()).isFalse();
+
+        emitter.send(message(1));
+        await(() -> sent.size() == 1 && !emitter.isRunning());
+        emitter.send(message(2));
+
+        await(() -> sent.size() == 2);
+        then(sent).containsExactly(1L, 2L);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static com.github.t1.logging.clientfilter.BodyMasker.Format.JSON;
+import static com.github.t1.logging.clientfilter.BodyMasker.Format.XML;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class BodyMaskerTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private String mask(BodyMasker.Format format, String body) {
+        var masker = format.masker(out::write);
+        masker.write(body.getBytes(UTF_8), 0, body.length());
+        return out.toString(UTF_8);
+    }
+
+    @Test
+    void shouldMaskJsonFields() {
+        var masked = mask(JSON, "{\"user\":\"joe\", \"Password\" : \"se\\\"cret\", \"token\":42,"
+                                + "\"nested\":{\"secret\":true},\"list\":[\"password\",\"x\"]}");
+
+        then(masked).isEqualTo("{\"user\":\"joe\", \"Password\" : \"***\", \"token\":\"***\","
+                               + "\"nested\":{\"secret\":\"***\"},\"list\":[\"password\",\"x\"]}");
+    }
+
+    @Test
+    void shouldMaskJsonFieldsWrittenByteByByte() {
+        var masker = JSON.masker(out::write);
+
+        for (byte b : "{\"password\":\"secret\",\"user\":\"joe\"}".getBytes(UTF_8))
+            masker.write(b);
+
+        then(out.toString(UTF_8)).isEqualTo("{\"password\":\"***\",\"user\":\"joe\"}");
+    }
+
+    @Test
+    void shouldMaskXmlElements() {
+        var masked = mask(XML, "<?xml version=\"1.0\"?><login><user>joe</user><ns:password a=\"1\">secret</ns:password>"
+                               + "<token/><secret><![CDATA[x<y]]></secret></login>");
+
+        then(masked).isEqualTo("<?xml version=\"1.0\"?><login><user>joe</user><ns:password a=\"1\">***</ns:password>"
+                               + "<token/><secret>***</secret></login>");
+    }
+
+    @Test
+    void shouldMaskNestedXmlElementsAndTextAfterThem() {
+        var masked = mask(XML, "<login><ns:password attr=\"1\"><b>s</b>t<br/><!-- </ns:password> -->"
+                               + "<![CDATA[</ns:password>]]>u</ns:password><user>joe</user></login>");
+
+        then(masked).isEqualTo("<login><ns:password attr=\"1\">***</ns:password><user>joe</user></login>");
+    }
+
+    @Test
+    void shouldMaskNestedXmlElementsOfTheSameName() {
+        var masked = mask(XML, "<secret><secret>a</secret>b</secret><user>joe</user>");
+
+        then(masked).isEqualTo("<secret>***</secret><user>joe</user>");
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class BufferPoolTest {
+    @Test
+    void shouldReuseReleasedBuffer() {
+        var pool = new BufferPool(2, 8);
+        var buffer = new byte[8];
+
+        pool.release(buffer);
+
+        then(pool.acquire()).isSameAs(buffer);
+        then(pool.acquire()).isNull();
+        then(pool.getHits()).isEqualTo(1);
+        then(pool.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDiscardBuffersWhenFull() {
+        var pool = new BufferPool(1, 8);
+
+        pool.release(new byte[8]); // thread-local
+        pool.release(new byte[8]); // shared
+        pool.release(new byte[8]);
+
+        then(pool.getDiscarded()).isEqualTo(1);
+        then(pool.acquire()).isNotNull();
+        then(pool.acquire()).isNotNull();
+        then(pool.acquire()).isNull();
+    }
+
+    @Test
+    void shouldDropLargerBuffers() {
+        var pool = new BufferPool(2, 8);
+
+        pool.release(new byte[16]);
+
+        then(pool.acquire()).isNull();
+        then(pool.getDiscarded()).isZero();
+    }
+
+    @Test
+    void shouldReplaceSmallerBuffersWithFullLengthOnes() {
+        var pool = new BufferPool(1, 8);
+
+        pool.release(new byte[4]); // thread-local
+        pool.release(new byte[4]); // shared
+        pool.release(new byte[4]); // full
+
+        then(pool.acquire()).hasSize(8);
+        then(pool.acquire()).hasSize(8);
+        then(pool.acquire()).isNull();
+        then(pool.getDiscarded()).isZero();
+    }
+}
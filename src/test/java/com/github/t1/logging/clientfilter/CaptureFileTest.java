@@ -0,0 +1,81 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Body;
+import com.github.t1.logging.clientfilter.Message.Head;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_REQUEST;
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_RESPONSE;
+import static jakarta.ws.rs.core.Response.Status.CREATED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.slf4j.event.Level.DEBUG;
+
+class CaptureFileTest {
+    @RegisterExtension LogRecorder recorder = new LogRecorder(CaptureFileTest.class);
+
+    @TempDir Path dir;
+
+    private Head head(Kind kind, Duration duration) {
+        return new Head(42, recorder.log, DEBUG, kind, "POST", URI.create("http://localhost/things"),
+                (duration == null) ? null : CREATED, Map.of("Content-Type", "application/json"), duration);
+    }
+
+    private Body body(Head head, String text) {
+        var capture = new BodyCapture(100);
+        capture.write(text.getBytes(UTF_8), 0, text.length());
+        return new Body(head, capture, UTF_8);
+    }
+
+    @Test
+    void shouldLogSummaryAndExportHar() throws IOException {
+        var file = new CaptureFile(dir, 4096, 2);
+        var request = head(CLIENT_REQUEST, null);
+        var response = head(CLIENT_RESPONSE, Duration.ofMillis(5));
+
+        file.send(request);
+        file.send(body(request, "{\"name\":\"foo\"}"));
+        file.send(response);
+        file.send(body(response, "{\"id\":\"1\"}"));
+
+        then(recorder.messages()).containsExactly(
+                "sending POST request http://localhost/things [capture-0.jrlc:6]",
+                ">> body of 14 bytes [capture-0.jrlc:117]",
+                "got response for POST http://localhost/things [capture-0.jrlc:174]",
+                "<< body of 10 bytes [capture-0.jrlc:292]");
+        var har = new StringBuilder();
+        new HarExporter().read(dir).write(har);
+        then(har.toString()).contains(
+                "\"time\":5.0,\"_side\":\"client\"",
+                "\"request\":{\"method\":\"POST\",\"url\":\"http://localhost/things\"",
+                "\"postData\":{\"mimeType\":\"application/json\",\"text\":\"{\\\"name\\\":\\\"foo\\\"}\"}",
+                "\"response\":{\"status\":201,\"statusText\":\"Created\"",
+                "\"content\":{\"size\":10,\"mimeType\":\"application/json\",\"text\":\"{\\\"id\\\":\\\"1\\\"}\"}");
+    }
+
+    @Test
+    void shouldRollAndKeepOnlyTheLastFiles() throws IOException {
+        var file = new CaptureFile(dir, 1024, 2);
+        var request = head(CLIENT_REQUEST, null);
+
+        for (int i = 0; i < 10; i++)
+            file.send(body(request, "x".repeat(100)));
+
+        try (var files = Files.list(dir)) {
+            then(files.map(path -> path.getFileName().toString())).containsExactlyInAnyOrder("capture-0.jrlc", "capture-1.jrlc");
+        }
+        then(new CaptureFile(dir, 1024, 2)).isNotNull();
+        try (var files = Files.list(dir)) {
+            then(files.map(path -> path.getFileName().toString())).containsExactlyInAnyOrder("capture-1.jrlc", "capture-2.jrlc");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.t1.logging.clientfilter.ContentEncoding.DEFLATE;
+import static com.github.t1.logging.clientfilter.ContentEncoding.GZIP;
+import static com.github.t1.logging.clientfilter.ContentEncoding.IDENTITY;
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_RESPONSE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class ContentEncodingTest {
+    @RegisterExtension LogRecorder recorder = new LogRecorder(ContentEncodingTest.class);
+
+    private static byte[] gzip(String text) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(String text, boolean raw) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflate.write(text.getBytes(UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private void log(ContentEncoding encoding, byte[] body) throws IOException {
+        var logger = new BodyLogger(new Exchange(), recorder.head(CLIENT_RESPONSE), UTF_8, false,
+                BodyMasker.Format.JSON, null, encoding, LoggingConfig.MAX_BODY_BYTES);
+        try (var stream = new LoggingOutputStream(new ByteArrayOutputStream(), logger)) {
+            stream.write(body);
+        }
+    }
+
+    @Test
+    void shouldParseHeader() {
+        then(ContentEncoding.of(null)).isEqualTo(IDENTITY);
+        then(ContentEncoding.of(" GZip")).isEqualTo(GZIP);
+        then(ContentEncoding.of("x-gzip")).isEqualTo(GZIP);
+        then(ContentEncoding.of("deflate")).isEqualTo(DEFLATE);
+        then(ContentEncoding.of("br")).isNull();
+        then(ContentEncoding.of("gzip, br")).isNull();
+    }
+
+    @Test
+    void shouldDecompressAndMaskGzipWhenEmitted() throws IOException {
+        log(GZIP, gzip("{\"user\":\"joe\",\"password\":\"secret\"}\nsecond line"));
+
+        then(recorder.messages()).containsExactly(
+                "<< {\"user\":\"joe\",\"password\":\"***\"}",
+                "<< second line");
+    }
+
+    @Test
+    void shouldDecompressZlibAndRawDeflate() throws IOException {
+        log(DEFLATE, deflate("zlib", false));
+        log(DEFLATE, deflate("raw", true));
+
+        then(recorder.messages()).containsExactly("<< zlib", "<< raw");
+    }
+
+    @Test
+    void shouldReturnPooledBufferWhenDecompressedBodyOutgrowsIt() throws IOException {
+        var compressed = new BodyCapture(LoggingConfig.MAX_BODY_BYTES);
+        var body = gzip("x".repeat(2 * LoggingConfig.MAX_BODY_BYTES));
+        compressed.write(body, 0, body.length);
+        while (BufferPool.INSTANCE.acquire() != null) {
+            // drain
+        }
+        var pooled = new byte[LoggingConfig.MAX_BODY_BYTES];
+        BufferPool.INSTANCE.release(pooled);
+
+        var decoded = GZIP.decode(compressed, null);
+
+        then(decoded.size()).isEqualTo(2 * LoggingConfig.MAX_BODY_BYTES);
+        then(BufferPool.INSTANCE.acquire()).isSameAs(pooled);
+        decoded.release();
+        compressed.release();
+    }
+
+    @Test
+    void shouldDecompressOnlyUpToLimit() throws IOException {
+        var body = gzip("x".repeat(LoggingConfig.MAX_DECOMPRESSED_BYTES + 10_000_000));
+
+        log(GZIP, body);
+
+        then(recorder.messages()).hasSize(2);
+        then(recorder.messages().get(0)).isEqualTo("<< " + "x".repeat(LoggingConfig.MAX_DECOMPRESSED_BYTES));
+        var truncated = Long.parseLong(recorder.messages().get(1).replaceAll("<< …truncated (\\d+) bytes", "$1"));
+        then(truncated).as("the remaining compressed bytes").isPositive().isLessThan(body.length);
+    }
+
+    @Test
+    void shouldNotReportTruncationWhenBodyFitsExactly() throws IOException {
+        log(GZIP, gzip("x".repeat(LoggingConfig.MAX_DECOMPRESSED_BYTES)));
+
+        then(recorder.messages()).containsExactly("<< " + "x".repeat(LoggingConfig.MAX_DECOMPRESSED_BYTES));
+    }
+
+    @Test
+    void shouldReportCorruptData() throws IOException {
+        log(GZIP, "not gzip".getBytes(UTF_8));
+
+        then(recorder.messages()).containsExactly("<< <can't decode gzip: Not in GZIP format>");
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.slf4j.event.Level.DEBUG;
+import static org.slf4j.event.Level.INFO;
+
+class EndpointTest {
+    @LogTraffic(body = false, maxBytes = 10)
+    interface Api {
+        void download();
+
+        @LogTraffic(enabled = false)
+        void health();
+
+        @LogTraffic(mediaTypes = "text/csv")
+        void csv();
+
+        void get(String id);
+
+        void get(String id, int version);
+    }
+
+    private final Endpoint endpoint = Endpoint.fallback(EndpointTest.class);
+
+    @Test
+    void shouldChangePolicyViaJmx() throws Exception {
+        var name = new ObjectName("com.github.t1.logging:type=Endpoint,endpoint=" + ObjectName.quote(EndpointTest.class.getName()));
+        var server = ManagementFactory.getPlatformMBeanServer();
+
+        server.setAttribute(name, new Attribute("Level", "info"));
+        server.setAttribute(name, new Attribute("MaxBodyBytes", 100));
+
+        then(endpoint.policy().level()).isEqualTo(INFO);
+        then(endpoint.policy().maxBodyBytes()).isEqualTo(100);
+        then(server.getAttribute(name, "Bodies")).isEqualTo(true);
+
+        server.invoke(name, "reset", null, null);
+
+        then(endpoint.policy()).usingRecursiveComparison().ignoringFields("sampler")
+                .isEqualTo(LoggingPolicy.of(EndpointTest.class.getName()));
+        then(endpoint.policy().level()).isEqualTo(DEBUG);
+    }
+
+    @Test
+    void shouldKeepSamplerUnlessSamplingChanges() {
+        var sampler = endpoint.policy().sampler();
+
+        endpoint.setHeaders(false);
+        then(endpoint.policy().sampler()).isSameAs(sampler);
+        then(endpoint.policy().headers()).isFalse();
+
+        endpoint.setRateLimit(10);
+        then(endpoint.policy().sampler()).isNotSameAs(sampler);
+        then(endpoint.policy().rateLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldCompileAnnotationIntoPolicy() throws Exception {
+        var download = Endpoint.of(Api.class.getMethod("download")).policy();
+        var health = Endpoint.of(Api.class.getMethod("health")).policy();
+        var csv = Endpoint.of(Api.class.getMethod("csv"));
+
+        then(download.enabled()).isTrue();
+        then(download.bodies()).isFalse();
+        then(download.maxBodyBytes()).isEqualTo(10);
+        then(health.enabled()).isFalse();
+        then(health.bodies()).isTrue();
+        then(csv.policy().maxBodyBytes()).isEqualTo(LoggingConfig.MAX_BODY_BYTES);
+        then(csv.policy().mediaTypes()).hasToString("[text/csv]");
+
+        csv.setHeaders(false);
+        csv.reset();
+
+        then(csv.policy().headers()).isTrue();
+        then(csv.policy().mediaTypes()).hasToString("[text/csv]");
+    }
+
+    @Test
+    void shouldRegisterOverloadedMethodsSeparately() throws Exception {
+        var one = Endpoint.of(Api.class.getMethod("get", String.class));
+        var two = Endpoint.of(Api.class.getMethod("get", String.class, int.class));
+        var name = new ObjectName("com.github.t1.logging:type=Endpoint,endpoint=" + ObjectName.quote(Api.class.getName() + ".get")
+                                  + ",params=" + ObjectName.quote("String"));
+
+        ManagementFactory.getPlatformMBeanServer().setAttribute(name, new Attribute("Enabled", false));
+
+        then(one.policy().enabled()).isFalse();
+        then(two.policy().enabled()).isTrue();
+        then(one.log()).isSameAs(two.log());
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Body;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+
+import static com.github.t1.logging.clientfilter.Kind.SERVER_REQUEST;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class ExchangeTest {
+    @RegisterExtension LogRecorder recorder = new LogRecorder(ExchangeTest.class);
+
+    private final Exchange exchange = new Exchange(true);
+
+    private void emitRequest() {
+        var head = recorder.head(SERVER_REQUEST);
+        exchange.emitHead(head, true);
+        var capture = new BodyCapture(100);
+        capture.write("foo".getBytes(ISO_8859_1), 0, 3);
+        exchange.emitBody(new Body(head, capture, ISO_8859_1));
+    }
+
+    @Test
+    void shouldLogHeldRequestOfFailedExchange() {
+        emitRequest();
+        then(recorder.messages()).isEmpty();
+
+        var logResponse = exchange.complete(503, Duration.ofMillis(1));
+
+        then(logResponse).isTrue();
+        then(recorder.messages()).containsExactly(
+                "got GET request http://localhost",
+                ">>> foo");
+    }
+
+    @Test
+    void shouldLogHeldRequestOfSlowExchange() {
+        emitRequest();
+
+        var logResponse = exchange.complete(200, LoggingConfig.TAIL_SLOW);
+
+        then(logResponse).isTrue();
+        then(recorder.messages()).hasSize(2);
+    }
+
+    @Test
+    void shouldDiscardSuccessfulExchange() {
+        emitRequest();
+
+        var logResponse = exchange.complete(200, Duration.ofMillis(1));
+
+        then(logResponse).isFalse();
+        then(recorder.messages()).isEmpty();
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class LatenciesTest {
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 1000 && !condition.getAsBoolean(); i++)
+            Thread.sleep(10);
+        then(condition.getAsBoolean()).as("condition met within 10 seconds").isTrue();
+    }
+
+    @Test
+    void shouldStopIdleSummaryThread() throws InterruptedException {
+        Latencies.startSummary(Duration.ofMillis(10));
+        then(Latencies.isSummarizing()).isTrue();
+
+        await(() -> !Latencies.isSummarizing());
+    }
+
+    @Test
+    void shouldStopSummaryThreadWhenApplicationStops() throws InterruptedException {
+        Latencies.startSummary(Duration.ofMinutes(1));
+
+        new LoggingExtension().beforeShutdown(null);
+
+        await(() -> !Latencies.isSummarizing());
+    }
+
+    @Test
+    void shouldUnregisterMBeansWhenApplicationStops() throws Exception {
+        var name = new ObjectName("com.github.t1.logging:type=Latency," + MBeans.endpoint(LatenciesTest.class.getName(), null));
+        MBeans.register("type=Latency," + MBeans.endpoint(LatenciesTest.class.getName(), null),
+                new LatencyHistogram(LatenciesTest.class.getName()));
+        then(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue();
+
+        new LoggingExtension().beforeShutdown(null);
+
+        then(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+    }
+}
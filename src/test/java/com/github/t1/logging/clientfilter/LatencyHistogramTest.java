@@ -0,0 +1,47 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class LatencyHistogramTest {
+    private final LatencyHistogram histogram = new LatencyHistogram("test.Api.get");
+
+    @Test
+    void shouldMapValuesIntoTheirBuckets() {
+        for (long micros : new long[]{0, 1, 7, 8, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE}) {
+            var bucket = LatencyHistogram.bucket(micros);
+            then(LatencyHistogram.upperBound(bucket)).as("upper bound of %d", micros).isGreaterThanOrEqualTo(micros);
+            if (bucket > 0)
+                then(LatencyHistogram.upperBound(bucket - 1)).as("upper bound below %d", micros).isLessThan(micros);
+        }
+    }
+
+    @Test
+    void shouldComputePercentiles() {
+        for (int i = 1; i <= 100; i++)
+            histogram.record(MILLISECONDS.toNanos(i), (i <= 95) ? 200 : 503);
+
+        then(histogram.getCount()).isEqualTo(100);
+        then(histogram.getMaxMicros()).isEqualTo(100_000);
+        then(histogram.getP50Micros()).isBetween(50_000L, (long) (50_000 * 1.125));
+        then(histogram.getP90Micros()).isBetween(90_000L, (long) (90_000 * 1.125));
+        then(histogram.getP99Micros()).isBetween(99_000L, 100_000L);
+        then(histogram.getStatus2xx()).isEqualTo(95);
+        then(histogram.getStatus5xx()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldReset() {
+        histogram.record(MICROSECONDS.toNanos(10), 200);
+
+        histogram.reset();
+
+        then(histogram.getCount()).isZero();
+        then(histogram.getP99Micros()).isZero();
+        then(histogram.getMaxMicros()).isZero();
+        then(histogram.getStatus2xx()).isZero();
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.t1.logging.clientfilter;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.github.t1.logging.clientfilter.Message.Head;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import static org.slf4j.event.Level.DEBUG;
+
+/**
+ * Records the log events of one logger; register with <code>&#64;RegisterExtension</code>.
+ */
+class LogRecorder implements BeforeEachCallback, AfterEachCallback {
+    final Logger log;
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    LogRecorder(Class<?> type) {
+        this.log = (Logger) LoggerFactory.getLogger(type);
+    }
+
+    LogRecorder(String name) {
+        this.log = (Logger) LoggerFactory.getLogger(name);
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        appender.start();
+        log.addAppender(appender);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        log.detachAppender(appender);
+        appender.list.clear();
+    }
+
+    /** A request head without headers, for the logging streams */
+    Head head(Kind kind) {
+        return new Head(0, log, DEBUG, kind, "GET", URI.create("http://localhost"), null, Map.of(), null);
+    }
+
+    BodyLogger bodyLogger(Kind kind, Charset charset) {
+        return new BodyLogger(new Exchange(), head(kind), charset, false);
+    }
+
+    List<ILoggingEvent> events() {
+        return appender.list;
+    }
+
+    List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+}
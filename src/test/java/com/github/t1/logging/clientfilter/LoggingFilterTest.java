@@ -0,0 +1,162 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Stubs.ClientExchange;
+import com.github.t1.logging.clientfilter.Stubs.ServerExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static com.github.t1.logging.clientfilter.LoggingTools.SKIPPED_PROPERTY;
+import static java.util.stream.Stream.concat;
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * A complete exchange through the filters, with the stubbed contexts of the {@link Stubs}.
+ * The tail and the structured mode are static configuration, so they are tested in separate surefire executions;
+ * see {@link TailLoggingFilterTest} and {@link StructuredLoggingFilterTest}.
+ */
+class LoggingFilterTest {
+    public static class Resource {
+        public String post(String body) {
+            return body;
+        }
+    }
+
+    public interface Api {
+        String post(String body);
+    }
+
+    static final Method RESOURCE_METHOD = post(Resource.class);
+    static final Method API_METHOD = post(Api.class);
+
+    private static Method post(Class<?> type) {
+        try {
+            return type.getMethod("post", String.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final List<String> SERVER_REQUEST = List.of(
+            "got POST request http://localhost:8080/ping",
+            ">>> Authorization: foo:<hidden>",
+            ">>> Content-Type: application/json",
+            ">>> abcdefghij");
+    static final List<String> SERVER_RESPONSE = List.of(
+            "sending response for POST http://localhost:8080/ping",
+            "<<< Status: 200 OK",
+            "<<< Authorization: foo:<hidden>",
+            "<<< Content-Type: application/json",
+            "<<< abcdefghij");
+
+    /** what the container does, with the application reading the request and writing the response */
+    static void exchange(LoggingContainerFilter filter, ServerExchange server) {
+        server.reset();
+        filter.filter(server.request);
+        server.read(server.request.getEntityStream());
+        filter.filter(server.request, server.response);
+        server.write(server.response.getEntityStream());
+    }
+
+    private final Endpoint resource = Endpoint.of(RESOURCE_METHOD);
+    private final Endpoint api = Endpoint.of(API_METHOD);
+
+    @RegisterExtension final LogRecorder serverLog = new LogRecorder(resource.name());
+    @RegisterExtension final LogRecorder clientLog = new LogRecorder(api.name());
+
+    private final LoggingContainerFilter containerFilter = new LoggingContainerFilter();
+    private final LoggingClientFilter clientFilter = new LoggingClientFilter();
+    private final ServerExchange server = new ServerExchange(RESOURCE_METHOD, 2, 10);
+    private final ClientExchange client = new ClientExchange(API_METHOD, 2, 10);
+
+    @AfterEach
+    void resetEndpoints() {
+        resource.reset();
+        api.reset();
+    }
+
+    @Test
+    void shouldLogServerExchange() {
+        exchange(containerFilter, server);
+
+        then(serverLog.messages()).containsExactlyElementsOf(concat(SERVER_REQUEST.stream(), SERVER_RESPONSE.stream()).toList());
+    }
+
+    @Test
+    void shouldLogClientExchange() throws IOException {
+        client.reset();
+        clientFilter.filter(client.request);
+        client.write(client.request.getEntityStream());
+        clientFilter.filter(client.request, client.response);
+        client.read(client.response.getEntityStream());
+
+        then(clientLog.messages()).containsExactly(
+                "sending POST request http://localhost:8080/ping",
+                ">> Authorization: foo:<hidden>",
+                ">> Content-Type: application/json",
+                ">> abcdefghij",
+                "got response for POST http://localhost:8080/ping",
+                "<< Status: 200 OK",
+                "<< Authorization: foo:<hidden>",
+                "<< Content-Type: application/json",
+                "<< abcdefghij");
+    }
+
+    @Test
+    void shouldLogMaskedToStringOfClientEntityWithoutStream() throws IOException {
+        client.reset();
+        client.entity = "{\"user\":\"joe\",\"password\":\"hunter2\"}";
+
+        clientFilter.filter(client.request);
+
+        then(clientLog.messages()).containsExactly(
+                "can't read entity stream... will log toString",
+                "sending POST request http://localhost:8080/ping",
+                ">> Authorization: foo:<hidden>",
+                ">> Content-Type: application/json",
+                ">> {\"user\":\"joe\",\"password\":\"***\"}");
+    }
+
+    @Test
+    void shouldSkipResponseOfUnsampledServerRequest() {
+        resource.setRateLimit(1); // with a burst of 1, only the first exchange within a second is logged
+        exchange(containerFilter, server);
+        serverLog.events().clear();
+
+        exchange(containerFilter, server);
+
+        then(server.properties).containsEntry(SKIPPED_PROPERTY, true);
+        then(serverLog.messages()).isEmpty();
+    }
+
+    @Test
+    void shouldSkipResponseOfUnsampledClientRequest() throws IOException {
+        api.setRateLimit(1);
+        client.reset();
+        clientFilter.filter(client.request);
+        clientFilter.filter(client.request, client.response);
+        clientLog.events().clear();
+        client.reset();
+
+        clientFilter.filter(client.request);
+        clientFilter.filter(client.request, client.response);
+
+        then(client.properties).containsEntry(SKIPPED_PROPERTY, true);
+        then(clientLog.messages()).isEmpty();
+    }
+
+    @Test
+    void shouldLogResponseWithoutRequestFilter() {
+        server.reset(); // e.g. when another request filter aborted the request, ours is not called
+
+        containerFilter.filter(server.request, server.response);
+        server.write(server.response.getEntityStream());
+
+        then(server.properties).doesNotContainKey(Exchange.PROPERTY);
+        then(serverLog.messages()).containsExactlyElementsOf(SERVER_RESPONSE);
+    }
+}
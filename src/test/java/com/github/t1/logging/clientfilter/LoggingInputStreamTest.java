@@ -0,0 +1,41 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_RESPONSE;
+import static com.github.t1.logging.clientfilter.Kind.SERVER_REQUEST;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class LoggingInputStreamTest {
+    @RegisterExtension LogRecorder recorder = new LogRecorder(LoggingInputStreamTest.class);
+
+    @Test
+    void shouldLogWhenEndOfStreamIsReached() throws IOException {
+        var stream = new LoggingInputStream(new ByteArrayInputStream("foo\nbär".getBytes(UTF_8)), recorder.bodyLogger(SERVER_REQUEST, UTF_8));
+
+        var body = stream.readAllBytes();
+
+        then(new String(body, UTF_8)).isEqualTo("foo\nbär");
+        then(recorder.messages()).containsExactly(
+                ">>> foo",
+                ">>> bär");
+    }
+
+    @Test
+    void shouldLogPartiallyReadBodyOnlyOnceWhenFinished() throws IOException {
+        var stream = new LoggingInputStream(new ByteArrayInputStream("foobar".getBytes(ISO_8859_1)), recorder.bodyLogger(CLIENT_RESPONSE, ISO_8859_1));
+
+        then(stream.readNBytes(3)).isEqualTo("foo".getBytes(ISO_8859_1));
+        then(recorder.messages()).isEmpty();
+        stream.finish();
+        stream.close();
+
+        then(recorder.messages()).containsExactly("<< foo");
+    }
+}
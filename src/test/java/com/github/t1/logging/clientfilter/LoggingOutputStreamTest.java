@@ -0,0 +1,147 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_REQUEST;
+import static com.github.t1.logging.clientfilter.Kind.SERVER_RESPONSE;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class LoggingOutputStreamTest {
+    @RegisterExtension LogRecorder recorder = new LogRecorder(LoggingOutputStreamTest.class);
+
+    @Test
+    void shouldPassThroughAndLogBulkWrites() throws IOException {
+        var target = new ByteArrayOutputStream();
+
+        try (var stream = new LoggingOutputStream(target, recorder.bodyLogger(SERVER_RESPONSE, ISO_8859_1))) {
+            stream.write("foo\nbar".getBytes(ISO_8859_1));
+            stream.write('!');
+        }
+
+        then(target.toString(ISO_8859_1)).isEqualTo("foo\nbar!");
+        then(recorder.messages()).containsExactly(
+                "<<< foo",
+                "<<< bar!");
+    }
+
+    @Test
+    void shouldTruncateCapturedBody() throws IOException {
+        var target = new ByteArrayOutputStream();
+        var body = "x".repeat(LoggingConfig.MAX_BODY_BYTES + 10).getBytes(ISO_8859_1);
+
+        try (var stream = new LoggingOutputStream(target, recorder.bodyLogger(SERVER_RESPONSE, ISO_8859_1))) {
+            stream.write(body, 0, 5);
+            stream.write(body, 5, body.length - 5);
+        }
+
+        then(target.toByteArray()).isEqualTo(body);
+        then(recorder.messages()).containsExactly(
+                "<<< " + "x".repeat(LoggingConfig.MAX_BODY_BYTES),
+                "<<< …truncated 10 bytes");
+    }
+
+    @Test
+    void shouldDecodeMultibyteCharactersSplitAcrossWrites() throws IOException {
+        var bytes = "grüße €".getBytes(UTF_8);
+
+        try (var stream = new LoggingOutputStream(new ByteArrayOutputStream(), recorder.bodyLogger(SERVER_RESPONSE, UTF_8))) {
+            for (byte b : bytes)
+                stream.write(new byte[]{b});
+        }
+
+        then(recorder.messages()).containsExactly("<<< grüße €");
+    }
+
+    @Test
+    void shouldNotGarbleMultibyteCharacterCutOffByTruncation() throws IOException {
+        var body = ("x".repeat(LoggingConfig.MAX_BODY_BYTES - 1) + "€").getBytes(UTF_8);
+
+        try (var stream = new LoggingOutputStream(new ByteArrayOutputStream(), recorder.bodyLogger(SERVER_RESPONSE, UTF_8))) {
+            stream.write(body);
+        }
+
+        then(recorder.messages()).containsExactly(
+                "<<< " + "x".repeat(LoggingConfig.MAX_BODY_BYTES - 1),
+                "<<< …truncated 2 bytes");
+    }
+
+    @Test
+    void shouldSplitLinesAcrossDecodingChunks() throws IOException {
+        var body = ("x".repeat(8191) + "\r\n" + "€".repeat(10_000) + "\nend").getBytes(UTF_8);
+
+        try (var stream = new LoggingOutputStream(new ByteArrayOutputStream(), recorder.bodyLogger(SERVER_RESPONSE, UTF_8))) {
+            stream.write(body);
+        }
+
+        then(recorder.messages()).containsExactly(
+                "<<< " + "x".repeat(8191),
+                "<<< " + "€".repeat(10_000),
+                "<<< end");
+    }
+
+    @Test
+    void shouldLogLinesWhileStreaming() throws IOException {
+        var stream = new LoggingOutputStream(new ByteArrayOutputStream(), new BodyLogger(new Exchange(), recorder.head(SERVER_RESPONSE), UTF_8, true));
+
+        stream.write("event: foo\ndata: 1".getBytes(UTF_8));
+        then(recorder.messages()).containsExactly("<<< event: foo");
+        stream.write("\n\nevent: bar\n".getBytes(UTF_8));
+        then(recorder.messages()).containsExactly("<<< event: foo", "<<< data: 1", "<<< ", "<<< event: bar");
+        stream.write("data: 2".getBytes(UTF_8));
+        stream.close();
+
+        then(recorder.messages()).containsExactly("<<< event: foo", "<<< data: 1", "<<< ", "<<< event: bar", "<<< data: 2");
+    }
+
+    @Test
+    void shouldReuseOnlyTheStreamBufferForAllLines() throws IOException {
+        while (BufferPool.INSTANCE.acquire() != null) {
+            // drain
+        }
+        var pooled = new byte[LoggingConfig.MAX_BODY_BYTES];
+        BufferPool.INSTANCE.release(pooled);
+        var hits = BufferPool.INSTANCE.getHits();
+        var misses = BufferPool.INSTANCE.getMisses();
+        var stream = new LoggingOutputStream(new ByteArrayOutputStream(), new BodyLogger(new Exchange(), recorder.head(SERVER_RESPONSE), UTF_8, true));
+
+        for (int i = 0; i < 100; i++)
+            stream.write(("data: " + i + "\n").getBytes(UTF_8));
+        stream.close();
+
+        then(recorder.messages()).hasSize(100).endsWith("<<< data: 99");
+        then(BufferPool.INSTANCE.getHits() - hits).as("hits").isEqualTo(1);
+        then(BufferPool.INSTANCE.getMisses() - misses).as("misses").isZero();
+        then(BufferPool.INSTANCE.acquire()).as("the stream capture").isSameAs(pooled);
+        then(BufferPool.INSTANCE.acquire()).as("the lines").isNull();
+    }
+
+    @Test
+    void shouldStopCapturingStreamAfterBudget() throws IOException {
+        var line = "x".repeat(1023) + "\n";
+        var stream = new LoggingOutputStream(new ByteArrayOutputStream(), new BodyLogger(new Exchange(), recorder.head(SERVER_RESPONSE), UTF_8, true));
+
+        for (int i = 0; i < 1025; i++)
+            stream.write(line.getBytes(UTF_8));
+        stream.close();
+
+        then(recorder.messages()).hasSize((int) (LoggingConfig.STREAMING_MAX_BYTES / 1024) + 1);
+        then(recorder.messages()).last().isEqualTo("<<< …truncated 1024 bytes");
+    }
+
+    @Test
+    void shouldLogOnlyOnceWhenClosedTwice() throws IOException {
+        var stream = new LoggingOutputStream(new ByteArrayOutputStream(), recorder.bodyLogger(CLIENT_REQUEST, ISO_8859_1));
+        stream.write("foo".getBytes(ISO_8859_1));
+
+        stream.close();
+        stream.close();
+
+        then(recorder.messages()).containsExactly(">> foo");
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class LoggingToolsTest {
+    private static String basic(String credentials) {
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(UTF_8));
+    }
+
+    @Test
+    void shouldShowUsernameOnlyForLongPasswords() {
+        then(LoggingTools.safe("authorization", List.of(basic("joe:short"), basic("joe:long-enough-password"), "Bearer x")))
+                .isEqualTo("<hidden>, joe:<hidden>, <hidden>");
+    }
+
+    @Test
+    void shouldHideRedactedHeadersCaseInsensitively() {
+        then(LoggingTools.safe("Set-Cookie", List.of("session=1", "other=2"))).isEqualTo("<hidden>, <hidden>");
+        then(LoggingTools.safe("x-api-key", List.of("abc"))).isEqualTo("<hidden>");
+        then(LoggingTools.safe("Accept", List.of("text/plain", "application/json"))).isEqualTo("text/plain, application/json");
+    }
+
+    @Test
+    void shouldFallBackToDefaultCharsetForIllegalOrUnsupportedNames() {
+        then(LoggingTools.charset(MediaType.valueOf("text/plain; charset=\"utf 8\""))).isEqualTo(ISO_8859_1);
+        then(LoggingTools.charset(MediaType.valueOf("application/json; charset=foo-42"))).isEqualTo(UTF_8);
+        then(LoggingTools.charset(MediaType.valueOf("text/plain; charset=utf-16"))).isEqualTo(UTF_16);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+class MediaTypesTest {
+    @Test
+    void shouldMatchDefaults() {
+        var defaults = LoggingConfig.MEDIA_TYPES;
+
+        then(defaults.matches(MediaType.valueOf("application/json; charset=utf-8"))).isTrue();
+        then(defaults.matches(MediaType.valueOf("application/problem+json"))).isTrue();
+        then(defaults.matches(MediaType.valueOf("application/atom+xml"))).isTrue();
+        then(defaults.matches(MediaType.valueOf("text/plain"))).isTrue();
+        then(defaults.matches(MediaType.valueOf("multipart/form-data; boundary=x"))).isTrue();
+        then(defaults.matches(MediaType.valueOf("application/octet-stream"))).isFalse();
+        then(defaults.matches(MediaType.valueOf("application/xjson"))).isFalse();
+        then(defaults.matches(MediaType.valueOf("text/html"))).isFalse();
+        then(defaults.matches(null)).isFalse();
+    }
+
+    @Test
+    void shouldMatchPatterns() {
+        var mediaTypes = MediaTypes.of("text/*", " Application/*+YAML ", "*/csv");
+
+        then(mediaTypes.matches(MediaType.valueOf("text/html"))).isTrue();
+        then(mediaTypes.matches(MediaType.valueOf("application/openapi+yaml"))).isTrue();
+        then(mediaTypes.matches(MediaType.valueOf("application/csv"))).isTrue();
+        then(mediaTypes.matches(MediaType.valueOf("application/yaml"))).isFalse();
+        then(mediaTypes.matches(MediaType.valueOf("application/json"))).isFalse();
+        then(mediaTypes).hasToString("[text/*, application/*+yaml, */csv]");
+        thenThrownBy(() -> MediaTypes.of("json")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldCompileConfiguredPatterns() {
+        System.setProperty("jax-rs-logging.test.media-types", "text/*, application/*+yaml");
+        try {
+            var mediaTypes = LoggingConfig.mediaTypes("jax-rs-logging.test.media-types", "application/json");
+
+            then(mediaTypes).hasToString("[text/*, application/*+yaml]");
+        } finally {
+            System.clearProperty("jax-rs-logging.test.media-types");
+        }
+    }
+
+    @Test
+    void shouldFailFastOnInvalidConfiguredPattern() {
+        System.setProperty("jax-rs-logging.test.media-types", "text/*, json");
+        try {
+            thenThrownBy(() -> LoggingConfig.mediaTypes("jax-rs-logging.test.media-types", "application/json"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("invalid media type pattern: json in jax-rs-logging.test.media-types");
+        } finally {
+            System.clearProperty("jax-rs-logging.test.media-types");
+        }
+    }
+
+    @Test
+    void shouldOnlyLogUncompressedMultipartWithBoundary() {
+        var policy = LoggingPolicy.of("foo");
+        var multipart = new MediaType("multipart", "form-data", Map.of("boundary", "x"));
+
+        then(policy.isLoggable(multipart, ContentEncoding.IDENTITY)).isTrue();
+        then(policy.isLoggable(multipart, ContentEncoding.GZIP)).isFalse();
+        then(policy.isLoggable(new MediaType("multipart", "form-data"), ContentEncoding.IDENTITY)).isFalse();
+        then(policy.isLoggable(MediaType.APPLICATION_JSON_TYPE, ContentEncoding.GZIP)).isTrue();
+        then(policy.isLoggable(MediaType.APPLICATION_JSON_TYPE, null)).isFalse();
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.t1.logging.clientfilter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.github.t1.logging.clientfilter.Message.Body;
+import com.github.t1.logging.clientfilter.Message.Event;
+import com.github.t1.logging.clientfilter.Message.Head;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+import static com.github.t1.logging.clientfilter.Kind.CLIENT_RESPONSE;
+import static jakarta.ws.rs.core.Response.Status.OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.slf4j.event.Level.DEBUG;
+import static org.slf4j.event.Level.INFO;
+
+class MessageTest {
+    @RegisterExtension LogRecorder recorder = new LogRecorder(MessageTest.class);
+
+    private final Head head = new Head(0, recorder.log, DEBUG, CLIENT_RESPONSE, "POST", URI.create("http://localhost/ping"),
+            OK, Map.of("Content-Type", "application/json"), Duration.ofMillis(3));
+
+    @Test
+    void shouldEmitHeadLines() {
+        head.emit();
+
+        then(recorder.messages()).containsExactly(
+                "got response for POST http://localhost/ping",
+                "<< Status: 200 OK",
+                "<< Content-Type: application/json");
+    }
+
+    @Test
+    void shouldEmitAtConfiguredLevel() {
+        new Head(0, recorder.log, INFO, CLIENT_RESPONSE, "POST", URI.create("http://localhost/ping"), OK, Map.of(), null).emit();
+
+        then(recorder.events()).extracting(ILoggingEvent::getLevel).containsExactly(Level.INFO, Level.INFO);
+    }
+
+    @Test
+    void shouldEmitSingleStructuredEvent() {
+        var capture = new BodyCapture(4);
+        capture.write("{\"a\":1}".getBytes(UTF_8), 0, 7);
+
+        new Event(head, new Body(head, capture, UTF_8)).emit();
+
+        then(recorder.messages()).containsExactly("got response for POST http://localhost/ping");
+        then(recorder.events().get(0).getKeyValuePairs()).extracting(pair -> pair.key + "=" + pair.value).containsExactly(
+                "kind=CLIENT_RESPONSE",
+                "exchange=0",
+                "method=POST",
+                "uri=http://localhost/ping",
+                "status=200",
+                "durationNanos=3000000",
+                "headers={Content-Type=application/json}",
+                "body={\"a\"",
+                "bodyBytes=7",
+                "bodyTruncatedBytes=3");
+    }
+
+    @Test
+    void shouldEmitContinuedStructuredEventWithoutHead() {
+        var capture = new BodyCapture(100);
+        capture.write("data: 2\n".getBytes(UTF_8), 0, 8);
+
+        new Event(head, new Body(head, capture, UTF_8), true).emit();
+
+        then(recorder.messages()).containsExactly("<< continued");
+        then(recorder.events().get(0).getKeyValuePairs()).extracting(pair -> pair.key + "=" + pair.value).containsExactly(
+                "kind=CLIENT_RESPONSE",
+                "exchange=0",
+                "body=data: 2\n",
+                "bodyBytes=8",
+                "bodyTruncatedBytes=0");
+    }
+}
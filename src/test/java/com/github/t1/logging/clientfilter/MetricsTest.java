@@ -0,0 +1,97 @@
+package com.github.t1.logging.clientfilter;
+
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.github.t1.logging.clientfilter.Kind.SERVER_RESPONSE;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class MetricsTest {
+    @RegisterExtension LogRecorder recorder = new LogRecorder(MetricsTest.class);
+
+    private final Metrics metrics = Metrics.INSTANCE;
+
+    @Test
+    void shouldCountCapturedAndTruncatedBodyBytes() throws IOException {
+        var captured = metrics.getBodyBytesCaptured();
+        var truncated = metrics.getBodyBytesTruncated();
+
+        try (var stream = new LoggingOutputStream(new ByteArrayOutputStream(), recorder.bodyLogger(SERVER_RESPONSE, ISO_8859_1))) {
+            stream.write("x".repeat(LoggingConfig.MAX_BODY_BYTES + 10).getBytes(ISO_8859_1));
+        }
+
+        then(metrics.getBodyBytesCaptured() - captured).isEqualTo(LoggingConfig.MAX_BODY_BYTES);
+        then(metrics.getBodyBytesTruncated() - truncated).isEqualTo(10);
+    }
+
+    @Test
+    void shouldCountHeadersAndRedactions() {
+        var chars = metrics.getHeaderCharsCaptured();
+        var redactions = metrics.getRedactions();
+
+        LoggingTools.safe(Map.of("Authorization", List.of("Bearer x")));
+        var masker = BodyMasker.Format.JSON.masker((b, off, len) -> {});
+        var body = "{\"password\":\"x\",\"token\":\"y\"}".getBytes(ISO_8859_1);
+        masker.write(body, 0, body.length);
+
+        then(metrics.getHeaderCharsCaptured() - chars).isEqualTo("Authorization".length() + "<hidden>".length());
+        then(metrics.getRedactions() - redactions).isEqualTo(3);
+        then(metrics.getQueueDepth()).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MetricRegistry registry(Map<String, Number> gauges) {
+        return (MetricRegistry) Proxy.newProxyInstance(MetricsTest.class.getClassLoader(), new Class<?>[]{MetricRegistry.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "gauge" -> {
+                        if (gauges.containsKey((String) args[0]))
+                            throw new IllegalArgumentException("already registered " + args[0]);
+                        gauges.put((String) args[0], ((Function<Object, Number>) args[2]).apply(args[1]));
+                        yield null;
+                    }
+                    case "remove" -> gauges.remove((String) args[0]) != null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void shouldRegisterAndRemoveMicroProfileGauges() {
+        var gauges = new HashMap<String, Number>();
+        metrics.redacted();
+
+        MicroProfileMetrics.register(() -> registry(gauges), metrics);
+
+        then(Metrics.isMicroProfileMetricsAvailable()).isTrue();
+        then(gauges).hasSize(9);
+        then(gauges.get("jax-rs-logging.redactions")).isEqualTo(metrics.getRedactions());
+        then(gauges.get("jax-rs-logging.queue.depth")).isEqualTo(0);
+
+        MicroProfileMetrics.unregister();
+
+        then(gauges).isEmpty();
+    }
+
+    @Test
+    void shouldOnlyWarnWhenGaugesCantBeRegistered() {
+        var gauges = new HashMap<String, Number>();
+        gauges.put("jax-rs-logging.redactions", 0); // e.g. from a previous deployment
+
+        MicroProfileMetrics.register(() -> registry(gauges), metrics);
+        MicroProfileMetrics.register(() -> {
+            throw new IllegalStateException("no CDI");
+        }, metrics);
+
+        then(gauges).containsKey("jax-rs-logging.exchanges.seen");
+        MicroProfileMetrics.unregister();
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.t1.logging.clientfilter;
+
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class MultipartScannerTest {
+    private static final String BODY = """
+            --xyz\r
+            Content-Disposition: form-data; name="comment"\r
+            \r
+            hello\r
+            world\r
+            --xyz\r
+            Content-Disposition: form-data; name="password"\r
+            \r
+            secret\r
+            --xyz\r
+            Content-Disposition: form-data; name="file"; filename="image.png"\r
+            Content-Type: image/png\r
+            \r
+            \u0089PNG\r
+            --xy\r
+            \u0000\u0001\r
+            --xyz--\r
+            epilogue\r
+            """;
+
+    @RegisterExtension final LogRecorder recorder = new LogRecorder(MultipartScannerTest.class);
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private String scan(int previewBytes, String body) {
+        var scanner = new MultipartScanner("xyz", previewBytes, out::write);
+        scanner.write(body.getBytes(ISO_8859_1), 0, body.length());
+        scanner.finish();
+        return out.toString(UTF_8);
+    }
+
+    @Test
+    void shouldFindBoundary() {
+        then(MultipartScanner.boundary(new MediaType("multipart", "form-data", Map.of("boundary", "xyz")))).isEqualTo("xyz");
+        then(MultipartScanner.boundary(new MediaType("multipart", "form-data"))).isNull();
+        then(MultipartScanner.boundary(new MediaType("text", "plain", Map.of("boundary", "xyz")))).isNull();
+    }
+
+    @Test
+    void shouldLogHeadersAndTextPartsButSkipBinaryParts() {
+        var scanned = scan(1024, BODY);
+
+        then(scanned).isEqualTo("""
+                --xyz\r
+                Content-Disposition: form-data; name="comment"\r
+                \r
+                hello\r
+                world\r
+                --xyz\r
+                Content-Disposition: form-data; name="password"\r
+                \r
+                ***\r
+                --xyz\r
+                Content-Disposition: form-data; name="file"; filename="image.png"\r
+                Content-Type: image/png\r
+                \r
+                <14 bytes>\r
+                --xyz--""");
+    }
+
+    @Test
+    void shouldTruncateTextPartsWrittenByteByByte() {
+        var scanner = new MultipartScanner("xyz", 3, out::write);
+
+        for (byte b : ("preamble\r\n--xyz\r\nContent-Type: text/plain\r\n\r\nhello\r\n--x\r\n--xyz--").getBytes(ISO_8859_1))
+            scanner.write(b);
+        scanner.finish();
+
+        then(out.toString(UTF_8)).isEqualTo("pre<…5 more bytes>\r\n--xyz\r\nContent-Type: text/plain\r\n\r\nhel<…7 more bytes>\r\n--xyz--");
+    }
+
+    @Test
+    void shouldSummarizeIncompleteBody() {
+        var scanned = scan(1024, "--xyz\r\nContent-Type: application/octet-stream\r\n\r\n0123456789\r\n--x");
+
+        then(scanned).isEqualTo("--xyz\r\nContent-Type: application/octet-stream\r\n\r\n<15 bytes>");
+    }
+
+    @Test
+    void shouldMaskJsonAndXmlParts() {
+        var scanned = scan(1024, "--xyz\r\nContent-Disposition: form-data; name=\"meta\"\r\nContent-Type: application/json\r\n\r\n"
+                                 + "{\"password\":\"hunter2\"}\r\n--xyz\r\nContent-Type: application/xml; charset=utf-8\r\n\r\n"
+                                 + "<token>abc</token>\r\n--xyz--");
+
+        then(scanned).isEqualTo("--xyz\r\nContent-Disposition: form-data; name=\"meta\"\r\nContent-Type: application/json\r\n\r\n"
+                                + "{\"password\":\"***\"}\r\n--xyz\r\nContent-Type: application/xml; charset=utf-8\r\n\r\n"
+                                + "<token>***</token>\r\n--xyz--");
+    }
+
+    @Test
+    void shouldConvertTextPartsToUtf8() {
+        var scanner = new MultipartScanner("xyz", 1024, out::write);
+        var body = new ByteArrayOutputStream();
+        body.writeBytes("--xyz\r\nContent-Disposition: form-data; name=\"greeting\"\r\n\r\n".getBytes(ISO_8859_1));
+        body.writeBytes("grüße".getBytes(UTF_8));
+        body.writeBytes("\r\n--xyz\r\nContent-Type: text/plain; charset=ISO-8859-1\r\n\r\n".getBytes(ISO_8859_1));
+        body.writeBytes("grüße".getBytes(ISO_8859_1));
+        body.writeBytes("\r\n--xyz\r\nContent-Type: text/plain; charset=\"utf 8\"\r\n\r\nok\r\n--xyz--".getBytes(ISO_8859_1));
+
+        scanner.write(body.toByteArray(), 0, body.size());
+        scanner.finish();
+
+        then(out.toString(UTF_8)).isEqualTo("--xyz\r\nContent-Disposition: form-data; name=\"greeting\"\r\n\r\ngrüße\r\n"
+                                            + "--xyz\r\nContent-Type: text/plain; charset=ISO-8859-1\r\n\r\ngrüße\r\n"
+                                            + "--xyz\r\nContent-Type: text/plain; charset=\"utf 8\"\r\n\r\nok\r\n--xyz--");
+    }
+
+    @Test
+    void shouldLogMultipartBodyAsUtf8() {
+        var logger = new BodyLogger(new Exchange(), recorder.head(Kind.SERVER_REQUEST), ISO_8859_1, false, null, "xyz",
+                ContentEncoding.IDENTITY, 1024);
+        var body = ("--xyz\r\nContent-Disposition: form-data; name=\"greeting\"\r\n\r\ngrüße\r\n--xyz--").getBytes(UTF_8);
+
+        logger.write(body, 0, body.length);
+        logger.finish();
+
+        then(recorder.messages()).contains(">>> grüße");
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.t1.logging.clientfilter;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.BDDAssertions.then;
+
+class SamplerTest {
+    @Test
+    void shouldSampleAllByDefault() {
+        var sampler = new Sampler(1, 0, 0);
+
+        for (int i = 0; i < 100; i++)
+            then(sampler.sample()).isTrue();
+    }
+
+    @Test
+    void shouldLimitRateWithBurst() {
+        var sampler = new Sampler(1, 10, 3);
+        var now = System.nanoTime();
+
+        then(sampler.acquire(now)).isTrue();
+        then(sampler.acquire(now)).isTrue();
+        then(sampler.acquire(now)).isTrue();
+        then(sampler.acquire(now)).as("burst exhausted").isFalse();
+        then(sampler.acquire(now + MILLISECONDS.toNanos(50))).as("not yet refilled").isFalse();
+        then(sampler.acquire(now + MILLISECONDS.toNanos(100))).as("refilled one").isTrue();
+        then(sampler.acquire(now + MILLISECONDS.toNanos(100))).isFalse();
+    }
+}
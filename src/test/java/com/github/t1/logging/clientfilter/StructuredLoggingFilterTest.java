@@ -0,0 +1,80 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Message.Head;
+import com.github.t1.logging.clientfilter.Stubs.ServerExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+import static com.github.t1.logging.clientfilter.LoggingFilterTest.RESOURCE_METHOD;
+import static jakarta.ws.rs.core.Response.Status.OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.slf4j.event.Level.DEBUG;
+
+/** Runs in the <code>structured</code> surefire execution */
+@EnabledIfSystemProperty(named = "jax-rs-logging.structured", matches = "true")
+class StructuredLoggingFilterTest {
+    @RegisterExtension final LogRecorder serverLog = new LogRecorder(Endpoint.of(RESOURCE_METHOD).name());
+
+    private final LoggingContainerFilter containerFilter = new LoggingContainerFilter();
+    private final ServerExchange server = new ServerExchange(RESOURCE_METHOD, 2, 10);
+
+    @Test
+    void shouldHoldBackHeadUntilBodyIsRead() {
+        server.reset();
+        containerFilter.filter(server.request);
+
+        then(serverLog.events()).isEmpty();
+
+        server.read(server.request.getEntityStream());
+        containerFilter.filter(server.request, server.response);
+
+        then(serverLog.messages()).containsExactly("got POST request http://localhost:8080/ping");
+        then(keyValues(0)).containsEntry("kind", Kind.SERVER_REQUEST).containsEntry("body", "abcdefghij");
+    }
+
+    @Test
+    void shouldLogOneEventPerResponse() {
+        server.reset();
+        containerFilter.filter(server.request);
+        server.read(server.request.getEntityStream());
+        containerFilter.filter(server.request, server.response);
+        server.write(server.response.getEntityStream());
+
+        then(serverLog.messages()).containsExactly(
+                "got POST request http://localhost:8080/ping",
+                "sending response for POST http://localhost:8080/ping");
+        then(keyValues(1)).containsEntry("kind", Kind.SERVER_RESPONSE).containsEntry("status", 200)
+                .containsEntry("body", "abcdefghij");
+    }
+
+    @Test
+    void shouldLogHeadOnlyWithFirstStreamedChunk() {
+        var exchange = new Exchange();
+        var head = new Head(exchange.id(), serverLog.log, DEBUG, Kind.SERVER_RESPONSE, "GET", URI.create("http://localhost/events"),
+                OK, Map.of("Content-Type", "text/event-stream"), Duration.ZERO);
+        exchange.emitHead(head, true);
+        var body = new BodyLogger(exchange, head, UTF_8, true);
+
+        body.write("data: 1\n\n".getBytes(UTF_8), 0, 9);
+        body.write("data: 2\n\n".getBytes(UTF_8), 0, 9);
+        body.finish();
+
+        then(serverLog.messages()).containsExactly("sending response for GET http://localhost/events", "<<< continued");
+        then(keyValues(0)).containsEntry("headers", Map.of("Content-Type", "text/event-stream"))
+                .containsEntry("body", "data: 1\n\n");
+        then(keyValues(1)).containsOnlyKeys("kind", "exchange", "body", "bodyBytes", "bodyTruncatedBytes")
+                .containsEntry("exchange", exchange.id()).containsEntry("body", "data: 2\n\n");
+    }
+
+    private Map<String, Object> keyValues(int index) {
+        return serverLog.events().get(index).getKeyValuePairs().stream()
+                .collect(toMap(pair -> pair.key, pair -> pair.value));
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.t1.logging.clientfilter;
+
+import com.github.t1.logging.clientfilter.Stubs.ClientExchange;
+import com.github.t1.logging.clientfilter.Stubs.ServerExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+
+import static com.github.t1.logging.clientfilter.LoggingFilterTest.API_METHOD;
+import static com.github.t1.logging.clientfilter.LoggingFilterTest.RESOURCE_METHOD;
+import static com.github.t1.logging.clientfilter.LoggingFilterTest.SERVER_REQUEST;
+import static com.github.t1.logging.clientfilter.LoggingFilterTest.exchange;
+import static org.assertj.core.api.BDDAssertions.then;
+
+/** Runs in the <code>tail</code> surefire execution */
+@EnabledIfSystemProperty(named = "jax-rs-logging.tail", matches = "true")
+class TailLoggingFilterTest {
+    @RegisterExtension final LogRecorder serverLog = new LogRecorder(Endpoint.of(RESOURCE_METHOD).name());
+    @RegisterExtension final LogRecorder clientLog = new LogRecorder(Endpoint.of(API_METHOD).name());
+
+    private final LoggingContainerFilter containerFilter = new LoggingContainerFilter();
+    private final ServerExchange server = new ServerExchange(RESOURCE_METHOD, 2, 10);
+    private final LoggingClientFilter clientFilter = new LoggingClientFilter();
+    private final ClientExchange client = new ClientExchange(API_METHOD, 2, 10);
+
+    @Test
+    void shouldSkipFastSuccessfulExchange() {
+        exchange(containerFilter, server);
+
+        then(serverLog.messages()).isEmpty();
+    }
+
+    @Test
+    void shouldNotCaptureResponseOfSkippedExchange() {
+        server.reset();
+        containerFilter.filter(server.request);
+        server.read(server.request.getEntityStream());
+        var entityStream = server.outputStream;
+
+        containerFilter.filter(server.request, server.response);
+
+        then(server.response.getEntityStream()).as("not wrapped").isSameAs(entityStream);
+    }
+
+    @Test
+    void shouldLogHeldRequestWithFailedResponse() {
+        server.status = 500;
+
+        exchange(containerFilter, server);
+
+        then(serverLog.messages()).startsWith(SERVER_REQUEST.toArray(String[]::new)).contains(
+                "sending response for POST http://localhost:8080/ping",
+                "<<< Status: 500 Internal Server Error",
+                "<<< abcdefghij");
+    }
+
+    @Test
+    void shouldHoldBackToStringOfClientEntity() throws IOException {
+        client.reset();
+        client.entity = "some entity";
+        clientFilter.filter(client.request);
+
+        then(clientLog.messages()).containsExactly("can't read entity stream... will log toString");
+
+        clientFilter.filter(client.request, client.response);
+
+        then(clientLog.messages()).containsExactly("can't read entity stream... will log toString");
+    }
+}